@@ -1,13 +1,20 @@
 package com.agro.agenda;
 
 import com.agro.agenda.dto.AgendaCreateDTO;
+import com.agro.agenda.dto.AgendaFeedTokenDTO;
+import com.agro.agenda.dto.AgendaFilter;
 import com.agro.agenda.dto.AgendaResponseDTO;
 import com.agro.user.User;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -15,15 +22,20 @@ import java.util.List;
 @SecurityRequirement(name = "bearer-key")
 public class AgendaController {
 
+    private static final MediaType TEXT_CALENDAR = MediaType.parseMediaType("text/calendar; charset=utf-8");
+
     private final AgendaService agendaService;
+    private final AgendaFeedService feedService;
 
-    public AgendaController(AgendaService agendaService) {
+    public AgendaController(AgendaService agendaService, AgendaFeedService feedService) {
         this.agendaService = agendaService;
+        this.feedService = feedService;
     }
 
     @GetMapping
-    public ResponseEntity<List<AgendaResponseDTO>> getMyEvents(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(agendaService.getMyEvents(user.getId()));
+    public ResponseEntity<List<AgendaResponseDTO>> getMyEvents(@AuthenticationPrincipal User user,
+            AgendaFilter filter) {
+        return ResponseEntity.ok(agendaService.getMyEvents(user.getId(), filter));
     }
 
     @PostMapping
@@ -38,9 +50,42 @@ public class AgendaController {
         return ResponseEntity.ok(agendaService.updateEvent(user.getId(), id, updateDTO));
     }
 
+    // Occurrences of a recurring event are addressed by the start the rule gives them
+    @PutMapping("/{id}/occurrences/{occurrenceStart}")
+    public ResponseEntity<AgendaResponseDTO> updateOccurrence(@AuthenticationPrincipal User user,
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime occurrenceStart,
+            @jakarta.validation.Valid @RequestBody AgendaCreateDTO updateDTO) {
+        return ResponseEntity.ok(agendaService.updateOccurrence(user.getId(), id, occurrenceStart, updateDTO));
+    }
+
+    @DeleteMapping("/{id}/occurrences/{occurrenceStart}")
+    public ResponseEntity<Void> cancelOccurrence(@AuthenticationPrincipal User user, @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime occurrenceStart) {
+        agendaService.cancelOccurrence(user.getId(), id, occurrenceStart);
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteEvent(@AuthenticationPrincipal User user, @PathVariable Long id) {
         agendaService.deleteEvent(user.getId(), id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/feed/token")
+    public ResponseEntity<AgendaFeedTokenDTO> issueFeedToken(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(feedService.issueToken(user.getId()));
+    }
+
+    // Read by calendar apps, which authenticate with the token in the URL
+    @GetMapping("/feed/{token}.ics")
+    public ResponseEntity<StreamingResponseBody> getFeed(@PathVariable String token, WebRequest webRequest) {
+        Long userId = feedService.resolveUserId(token);
+        AgendaFeedService.FeedVersion version = feedService.getVersion(userId);
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+        StreamingResponseBody body = out -> feedService.writeFeed(userId, out);
+        return ResponseEntity.ok().contentType(TEXT_CALENDAR).body(body);
+    }
 }
@@ -3,10 +3,15 @@ package com.agro.agenda;
 import com.agro.user.User;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "agenda_events")
+@Table(name = "agenda_events", indexes = {
+        @Index(name = "idx_agenda_events_user_start", columnList = "user_id, start_date"),
+        @Index(name = "idx_agenda_events_user_end", columnList = "user_id, end_date"),
+        @Index(name = "idx_agenda_events_source", columnList = "source, source_id")
+})
 public class AgendaEvent {
 
     @Id
@@ -36,26 +41,59 @@ public class AgendaEvent {
     // Optional: link to a specific field
     private Long fieldId;
 
+    // Record this event was generated from, null for events created by hand
+    @Enumerated(EnumType.STRING)
+    private AgendaEventSource source;
+
+    @Column(name = "source_id")
+    private Long sourceId;
+
+    // RRULE of a recurring event; the row holds the first occurrence
+    private String recurrenceRule;
+
+    // End of the last occurrence, null while the series has no end
+    private LocalDateTime seriesEnd;
+
+    // Null on rows written before it was tracked
+    private Instant updatedAt;
+
+    // Labels match the ones the frontend shows
     public enum EventType {
         // Existing general types
-        VACCINATION,
-        SOWING,
-        HARVEST,
-        GENERAL,
-        TASK,
+        VACCINATION("Vacunación"),
+        SOWING("Siembra"),
+        HARVEST("Cosecha"),
+        GENERAL("General"),
+        TASK("Tarea"),
 
         // New livestock-specific types
-        PURCHASE, // Animal purchases
-        SALE, // Animal sales
-        LIVESTOCK_BIRTH, // Animal births
-        LIVESTOCK_MOVE, // Movements between fields
-        HEALTH, // Health events (including deaths)
-        LIVESTOCK_EXPENSE // General livestock expenses
+        PURCHASE("Compra de Hacienda"), // Animal purchases
+        SALE("Venta de Hacienda"), // Animal sales
+        LIVESTOCK_BIRTH("Nacimiento"), // Animal births
+        LIVESTOCK_MOVE("Movimiento de Hacienda"), // Movements between fields
+        HEALTH("Salud Animal"), // Health events (including deaths)
+        LIVESTOCK_EXPENSE("Gasto de Hacienda"); // General livestock expenses
+
+        private final String label;
+
+        EventType(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
     }
 
     public AgendaEvent() {
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -119,4 +157,40 @@ public class AgendaEvent {
     public void setFieldId(Long fieldId) {
         this.fieldId = fieldId;
     }
+
+    public AgendaEventSource getSource() {
+        return source;
+    }
+
+    public void setSource(AgendaEventSource source) {
+        this.source = source;
+    }
+
+    public Long getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(Long sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+
+    public void setRecurrenceRule(String recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+    }
+
+    public LocalDateTime getSeriesEnd() {
+        return seriesEnd;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setSeriesEnd(LocalDateTime seriesEnd) {
+        this.seriesEnd = seriesEnd;
+    }
 }
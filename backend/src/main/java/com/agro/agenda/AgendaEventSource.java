@@ -0,0 +1,20 @@
+package com.agro.agenda;
+
+/**
+ * Record that an agenda event was generated from. Each source table keeps the id of
+ * its event in an agenda_event_id column.
+ */
+public enum AgendaEventSource {
+    LIVESTOCK_TRANSACTION("livestock_transactions"),
+    LIVESTOCK_EXPENSE("livestock_expenses");
+
+    private final String table;
+
+    AgendaEventSource(String table) {
+        this.table = table;
+    }
+
+    String getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,123 @@
+package com.agro.agenda;
+
+import com.agro.agenda.dto.AgendaFeedTokenDTO;
+import jakarta.persistence.EntityManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Serves the agenda as an iCalendar subscription. Calendar apps cannot send a JWT, so the
+ * feed is addressed by a per-user secret token instead.
+ */
+@Service
+public class AgendaFeedService {
+
+    public static final String FEED_PATH = "/api/v1/agenda/feed/";
+
+    private final AgendaRepository agendaRepository;
+    private final AgendaOccurrenceOverrideRepository overrideRepository;
+    private final AgendaFeedTokenRepository feedTokenRepository;
+    private final EntityManager entityManager;
+    private final SecureRandom random = new SecureRandom();
+
+    public AgendaFeedService(AgendaRepository agendaRepository,
+            AgendaOccurrenceOverrideRepository overrideRepository,
+            AgendaFeedTokenRepository feedTokenRepository, EntityManager entityManager) {
+        this.agendaRepository = agendaRepository;
+        this.overrideRepository = overrideRepository;
+        this.feedTokenRepository = feedTokenRepository;
+        this.entityManager = entityManager;
+    }
+
+    public record FeedVersion(String etag, long lastModified) {
+    }
+
+    // Issuing a token replaces the previous one, so an old subscription URL stops working
+    @Transactional
+    public AgendaFeedTokenDTO issueToken(Long userId) {
+        byte[] bytes = new byte[20];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        AgendaFeedToken feedToken = feedTokenRepository.findByUserId(userId)
+                .orElseGet(() -> new AgendaFeedToken(userId));
+        feedToken.setToken(token);
+        feedToken.setCreatedAt(LocalDateTime.now());
+        feedTokenRepository.save(feedToken);
+        return new AgendaFeedTokenDTO(token, FEED_PATH + token + ".ics");
+    }
+
+    @Transactional(readOnly = true)
+    public Long resolveUserId(String token) {
+        return feedTokenRepository.findByToken(token)
+                .map(AgendaFeedToken::getUserId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Feed not found"));
+    }
+
+    /**
+     * Cheap fingerprint of the feed contents. Counts catch deletes, the latest update time
+     * catches everything else.
+     */
+    @Transactional(readOnly = true)
+    public FeedVersion getVersion(Long userId) {
+        Object[] events = agendaRepository.summarizeByUserId(userId).get(0);
+        Object[] overrides = overrideRepository.summarizeByUserId(userId).get(0);
+        Instant lastUpdate = latest((Instant) events[1], (Instant) overrides[1]);
+        long lastModified = lastUpdate != null ? lastUpdate.toEpochMilli() : 0L;
+        String etag = "\"" + Long.toHexString(userId) + "-" + events[0] + "-" + overrides[0] + "-"
+                + Long.toHexString(lastModified) + "\"";
+        return new FeedVersion(etag, lastModified);
+    }
+
+    // Events are read through a cursor and written as they arrive instead of being loaded up front
+    @Transactional(readOnly = true)
+    public void writeFeed(Long userId, OutputStream out) {
+        Map<Long, List<AgendaOccurrenceOverride>> overridesByEvent = overrideRepository.findByUserId(userId)
+                .stream()
+                .collect(Collectors.groupingBy(AgendaOccurrenceOverride::getEventId));
+
+        AgendaIcsWriter writer = new AgendaIcsWriter(
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), Instant.now());
+        try (Stream<AgendaEvent> events = agendaRepository.streamByUserId(userId)) {
+            writer.begin("Agenda Agro");
+            events.forEach(event -> {
+                try {
+                    writer.event(event, overridesByEvent.getOrDefault(event.getId(), List.of()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(event);
+            });
+            writer.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,57 @@
+package com.agro.agenda;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Secret that lets calendar apps read a user's agenda feed without logging in.
+ * Each user has at most one; issuing a new one revokes the previous URL.
+ */
+@Entity
+@Table(name = "agenda_feed_tokens")
+public class AgendaFeedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, unique = true)
+    private Long userId;
+
+    @Column(nullable = false, unique = true)
+    private String token;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public AgendaFeedToken() {
+    }
+
+    public AgendaFeedToken(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,12 @@
+package com.agro.agenda;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+interface AgendaFeedTokenRepository extends JpaRepository<AgendaFeedToken, Long> {
+
+    Optional<AgendaFeedToken> findByToken(String token);
+
+    Optional<AgendaFeedToken> findByUserId(Long userId);
+}
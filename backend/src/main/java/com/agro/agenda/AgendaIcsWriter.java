@@ -0,0 +1,128 @@
+package com.agro.agenda;
+
+import com.agro.agenda.dto.AgendaResponseDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes an iCalendar (RFC 5545) feed event by event. Times are written as floating
+ * local times, the same way the agenda stores them.
+ */
+final class AgendaIcsWriter {
+
+    private static final DateTimeFormatter LOCAL_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final Writer out;
+    private final String stamp;
+
+    AgendaIcsWriter(Writer out, Instant generatedAt) {
+        this.out = out;
+        this.stamp = UTC_TIME.format(generatedAt);
+    }
+
+    void begin(String calendarName) throws IOException {
+        line("BEGIN:VCALENDAR");
+        line("VERSION:2.0");
+        line("PRODID:-//Agro//Agenda//ES");
+        line("CALSCALE:GREGORIAN");
+        line("METHOD:PUBLISH");
+        line("X-WR-CALNAME:" + text(calendarName));
+    }
+
+    void event(AgendaEvent event, List<AgendaOccurrenceOverride> allOverrides) throws IOException {
+        List<AgendaOccurrenceOverride> overrides = AgendaService.currentOverrides(event, allOverrides);
+        line("BEGIN:VEVENT");
+        line("UID:" + uid(event));
+        line("DTSTAMP:" + stamp(event.getUpdatedAt()));
+        line("DTSTART:" + LOCAL_TIME.format(event.getStartDate()));
+        line("DTEND:" + LOCAL_TIME.format(event.getEndDate()));
+        line("SUMMARY:" + text(event.getTitle()));
+        if (event.getDescription() != null && !event.getDescription().isEmpty()) {
+            line("DESCRIPTION:" + text(event.getDescription()));
+        }
+        line("CATEGORIES:" + text(event.getEventType().getLabel()));
+        if (event.getRecurrenceRule() != null) {
+            String rule = event.getRecurrenceRule();
+            line("RRULE:" + (rule.startsWith("RRULE:") ? rule.substring("RRULE:".length()) : rule));
+            String cancelled = overrides.stream()
+                    .filter(AgendaOccurrenceOverride::isCancelled)
+                    .map(o -> LOCAL_TIME.format(o.getOriginalStart()))
+                    .collect(Collectors.joining(","));
+            if (!cancelled.isEmpty()) {
+                line("EXDATE:" + cancelled);
+            }
+        }
+        line("END:VEVENT");
+
+        // Changed occurrences are separate components pointing at the series
+        for (AgendaOccurrenceOverride override : overrides) {
+            if (override.isCancelled()) {
+                continue;
+            }
+            AgendaResponseDTO occurrence = AgendaService.mapOverride(event, override);
+            line("BEGIN:VEVENT");
+            line("UID:" + uid(event));
+            line("RECURRENCE-ID:" + LOCAL_TIME.format(override.getOriginalStart()));
+            line("DTSTAMP:" + stamp(override.getUpdatedAt()));
+            line("DTSTART:" + LOCAL_TIME.format(occurrence.getStartDate()));
+            line("DTEND:" + LOCAL_TIME.format(occurrence.getEndDate()));
+            line("SUMMARY:" + text(occurrence.getTitle()));
+            if (occurrence.getDescription() != null && !occurrence.getDescription().isEmpty()) {
+                line("DESCRIPTION:" + text(occurrence.getDescription()));
+            }
+            line("CATEGORIES:" + text(event.getEventType().getLabel()));
+            line("END:VEVENT");
+        }
+    }
+
+    void end() throws IOException {
+        line("END:VCALENDAR");
+        out.flush();
+    }
+
+    private String uid(AgendaEvent event) {
+        return "agenda-" + event.getId() + "@agro";
+    }
+
+    private String stamp(Instant updatedAt) {
+        return updatedAt != null ? UTC_TIME.format(updatedAt) : stamp;
+    }
+
+    private static String text(String value) {
+        return value.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n")
+                .replace("\r", "\\n");
+    }
+
+    // Folds lines longer than 75 octets without splitting a UTF-8 character
+    private void line(String content) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            int length = Character.charCount(codePoint);
+            int size = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            if (octets + size > MAX_LINE_OCTETS) {
+                out.write("\r\n ");
+                octets = 1;
+            }
+            out.write(content, i, length);
+            octets += size;
+            i += length;
+        }
+        out.write("\r\n");
+    }
+}
@@ -0,0 +1,111 @@
+package com.agro.agenda;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Change to a single occurrence of a recurring event, identified by the start the
+ * rule gives it. The occurrence is either cancelled or moved and retitled.
+ */
+@Entity
+@Table(name = "agenda_occurrence_overrides", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_agenda_override_event_start", columnNames = { "event_id", "original_start" })
+})
+public class AgendaOccurrenceOverride {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "original_start", nullable = false)
+    private LocalDateTime originalStart;
+
+    @Column(nullable = false)
+    private boolean cancelled;
+
+    // Null values keep the ones of the series
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    private LocalDateTime startDate;
+
+    private LocalDateTime endDate;
+
+    private Instant updatedAt;
+
+    public AgendaOccurrenceOverride() {
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
+    public AgendaOccurrenceOverride(Long eventId, LocalDateTime originalStart) {
+        this.eventId = eventId;
+        this.originalStart = originalStart;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public LocalDateTime getOriginalStart() {
+        return originalStart;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
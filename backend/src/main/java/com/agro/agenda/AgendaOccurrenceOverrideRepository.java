@@ -0,0 +1,31 @@
+package com.agro.agenda;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+interface AgendaOccurrenceOverrideRepository extends JpaRepository<AgendaOccurrenceOverride, Long> {
+
+    List<AgendaOccurrenceOverride> findByEventIdIn(Collection<Long> eventIds);
+
+    Optional<AgendaOccurrenceOverride> findByEventIdAndOriginalStart(Long eventId, LocalDateTime originalStart);
+
+    @Query("SELECT o FROM AgendaOccurrenceOverride o WHERE o.eventId IN "
+            + "(SELECT e.id FROM AgendaEvent e WHERE e.user.id = :userId)")
+    List<AgendaOccurrenceOverride> findByUserId(@Param("userId") Long userId);
+
+    // Row of [count, latest updatedAt] of the overrides on the user's events
+    @Query("SELECT COUNT(o), MAX(o.updatedAt) FROM AgendaOccurrenceOverride o WHERE o.eventId IN "
+            + "(SELECT e.id FROM AgendaEvent e WHERE e.user.id = :userId)")
+    List<Object[]> summarizeByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM AgendaOccurrenceOverride o WHERE o.eventId = :eventId")
+    void deleteByEventId(@Param("eventId") Long eventId);
+}
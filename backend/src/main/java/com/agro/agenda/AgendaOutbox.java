@@ -0,0 +1,41 @@
+package com.agro.agenda;
+
+import com.agro.agenda.dto.AgendaCreateDTO;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Queues agenda changes caused by other records. Messages are written within the
+ * caller's transaction, so they commit or roll back together with the record.
+ */
+@Service
+public class AgendaOutbox {
+
+    private final AgendaOutboxRepository outboxRepository;
+
+    public AgendaOutbox(AgendaOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    // Creates the event of the source, or updates it if it already has one
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void upsert(Long userId, AgendaEventSource source, Long sourceId, Long agendaEventId,
+            AgendaCreateDTO event) {
+        AgendaOutboxMessage message = new AgendaOutboxMessage(AgendaOutboxMessage.Operation.UPSERT, userId,
+                source, sourceId, agendaEventId);
+        message.setTitle(event.getTitle());
+        message.setDescription(event.getDescription());
+        message.setStartDate(event.getStartDate());
+        message.setEndDate(event.getEndDate());
+        message.setEventType(event.getEventType());
+        message.setFieldId(event.getFieldId());
+        outboxRepository.save(message);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void delete(Long userId, AgendaEventSource source, Long sourceId, Long agendaEventId) {
+        outboxRepository.save(new AgendaOutboxMessage(AgendaOutboxMessage.Operation.DELETE, userId, source,
+                sourceId, agendaEventId));
+    }
+}
@@ -0,0 +1,139 @@
+package com.agro.agenda;
+
+import com.agro.user.User;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Applies queued agenda changes in batches, one transaction per batch. When a batch
+ * fails its messages are retried one by one, so a single bad message only delays
+ * the later messages of its own source.
+ */
+@Component
+public class AgendaOutboxDispatcher {
+
+    private final AgendaOutboxRepository outboxRepository;
+    private final AgendaRepository agendaRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    public AgendaOutboxDispatcher(AgendaOutboxRepository outboxRepository, AgendaRepository agendaRepository,
+            EntityManager entityManager, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${agenda.outbox.batch-size:100}") int batchSize,
+            @Value("${agenda.outbox.max-attempts:5}") int maxAttempts) {
+        this.outboxRepository = outboxRepository;
+        this.agendaRepository = agendaRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${agenda.outbox.dispatch-interval-ms:1000}")
+    public void dispatch() {
+        Integer dispatched;
+        do {
+            try {
+                dispatched = transactionTemplate.execute(status -> dispatchBatch());
+            } catch (Exception e) {
+                System.err.println("Agenda outbox batch failed, dispatching one by one: " + e.getMessage());
+                dispatchOneByOne();
+                return;
+            }
+        } while (dispatched != null && dispatched == batchSize);
+    }
+
+    private int dispatchBatch() {
+        List<AgendaOutboxMessage> batch = outboxRepository.lockBatch(batchSize);
+        for (AgendaOutboxMessage message : batch) {
+            apply(message);
+        }
+        outboxRepository.deleteAllInBatch(batch);
+        return batch.size();
+    }
+
+    private void dispatchOneByOne() {
+        // Sources with a failed message keep their later messages queued, to stay in order
+        Set<String> blockedSources = new HashSet<>();
+        for (Long id : outboxRepository.findOldestIds(PageRequest.of(0, batchSize))) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> outboxRepository.lockById(id)
+                        .filter(message -> !blockedSources.contains(sourceKey(message)))
+                        .ifPresent(message -> {
+                            apply(message);
+                            outboxRepository.delete(message);
+                        }));
+            } catch (Exception e) {
+                recordFailure(id, e, blockedSources);
+            }
+        }
+    }
+
+    private void recordFailure(Long id, Exception error, Set<String> blockedSources) {
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(id).ifPresent(message -> {
+            message.setAttempts(message.getAttempts() + 1);
+            message.setLastError(error.getMessage());
+            if (message.getAttempts() >= maxAttempts) {
+                System.err.println("Dropping agenda outbox message " + id + " for " + sourceKey(message)
+                        + " after " + message.getAttempts() + " attempts: " + error.getMessage());
+                outboxRepository.delete(message);
+            } else {
+                blockedSources.add(sourceKey(message));
+            }
+        }));
+    }
+
+    private void apply(AgendaOutboxMessage message) {
+        Optional<AgendaEvent> existing = agendaRepository.findBySourceAndSourceId(message.getSource(),
+                message.getSourceId());
+        // Events created before sources were linked are only known by id
+        if (existing.isEmpty() && message.getAgendaEventId() != null) {
+            existing = agendaRepository.findById(message.getAgendaEventId());
+        }
+
+        if (message.getOperation() == AgendaOutboxMessage.Operation.DELETE) {
+            existing.ifPresent(agendaRepository::delete);
+            return;
+        }
+
+        AgendaEvent event = existing.orElseGet(() -> {
+            AgendaEvent created = new AgendaEvent();
+            created.setUser(entityManager.getReference(User.class, message.getUserId()));
+            return created;
+        });
+        event.setTitle(message.getTitle());
+        event.setDescription(message.getDescription());
+        event.setStartDate(message.getStartDate());
+        event.setEndDate(message.getEndDate());
+        event.setEventType(message.getEventType());
+        event.setFieldId(message.getFieldId());
+        event.setSource(message.getSource());
+        event.setSourceId(message.getSourceId());
+        AgendaEvent saved = agendaRepository.save(event);
+
+        if (!saved.getId().equals(message.getAgendaEventId())) {
+            // No row is updated if the source was deleted meanwhile; its DELETE message follows
+            jdbcTemplate.update("UPDATE " + message.getSource().getTable() + " SET agenda_event_id = ? WHERE id = ?",
+                    saved.getId(), message.getSourceId());
+        }
+    }
+
+    private String sourceKey(AgendaOutboxMessage message) {
+        return message.getSource() + ":" + message.getSourceId();
+    }
+}
@@ -0,0 +1,172 @@
+package com.agro.agenda;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Pending change to the agenda event of a source record, written in the same
+ * transaction as the record and applied later by {@link AgendaOutboxDispatcher}.
+ */
+@Entity
+@Table(name = "agenda_outbox", indexes = {
+        // Backs the check for older messages of the same source when locking
+        @Index(name = "idx_agenda_outbox_source", columnList = "source, source_id, id")
+})
+public class AgendaOutboxMessage {
+
+    // Sequence ids (allocated 50 at a time) let Hibernate batch the inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agenda_outbox_seq")
+    @SequenceGenerator(name = "agenda_outbox_seq", sequenceName = "agenda_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Operation operation;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AgendaEventSource source;
+
+    @Column(name = "source_id", nullable = false)
+    private Long sourceId;
+
+    // Event the source pointed to when the message was written, if it had one
+    private Long agendaEventId;
+
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    private LocalDateTime startDate;
+
+    private LocalDateTime endDate;
+
+    @Enumerated(EnumType.STRING)
+    private AgendaEvent.EventType eventType;
+
+    private Long fieldId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+
+    public AgendaOutboxMessage() {
+    }
+
+    public AgendaOutboxMessage(Operation operation, Long userId, AgendaEventSource source, Long sourceId,
+            Long agendaEventId) {
+        this.operation = operation;
+        this.userId = userId;
+        this.source = source;
+        this.sourceId = sourceId;
+        this.agendaEventId = agendaEventId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public AgendaEventSource getSource() {
+        return source;
+    }
+
+    public Long getSourceId() {
+        return sourceId;
+    }
+
+    public Long getAgendaEventId() {
+        return agendaEventId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public AgendaEvent.EventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(AgendaEvent.EventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getFieldId() {
+        return fieldId;
+    }
+
+    public void setFieldId(Long fieldId) {
+        this.fieldId = fieldId;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,42 @@
+package com.agro.agenda;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+interface AgendaOutboxRepository extends JpaRepository<AgendaOutboxMessage, Long> {
+
+    // Oldest messages first; rows held by another dispatcher are skipped. A message is
+    // only returned when every older message of its source is in the same batch, so a
+    // source's later change is never applied while another dispatcher holds an earlier one.
+    // Filtered rows stay locked until commit and are picked up by the next batch.
+    @Query(value = """
+            WITH locked AS (
+                SELECT * FROM agenda_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED)
+            SELECT l.* FROM locked l
+            WHERE NOT EXISTS (
+                SELECT 1 FROM agenda_outbox older
+                WHERE older.source = l.source AND older.source_id = l.source_id AND older.id < l.id
+                  AND older.id NOT IN (SELECT id FROM locked))
+            ORDER BY l.id
+            """, nativeQuery = true)
+    List<AgendaOutboxMessage> lockBatch(@Param("limit") int limit);
+
+    // Empty when the message is held elsewhere or an older message of its source is still queued
+    @Query(value = """
+            SELECT * FROM agenda_outbox m
+            WHERE m.id = :id
+              AND NOT EXISTS (
+                  SELECT 1 FROM agenda_outbox older
+                  WHERE older.source = m.source AND older.source_id = m.source_id AND older.id < m.id)
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<AgendaOutboxMessage> lockById(@Param("id") Long id);
+
+    @Query("SELECT m.id FROM AgendaOutboxMessage m ORDER BY m.id")
+    List<Long> findOldestIds(Pageable pageable);
+}
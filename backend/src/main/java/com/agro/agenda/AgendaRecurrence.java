@@ -0,0 +1,160 @@
+package com.agro.agenda;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Consumer;
+
+/**
+ * Subset of an iCalendar RRULE: FREQ (DAILY, WEEKLY, MONTHLY or YEARLY), INTERVAL,
+ * COUNT and UNTIL. Occurrence n starts at the series start plus n * INTERVAL units,
+ * so monthly series started on the 31st fall on the last day of shorter months.
+ */
+final class AgendaRecurrence {
+
+    private static final DateTimeFormatter UNTIL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final ChronoUnit unit;
+    private final int interval;
+    private final Integer count;
+    private final LocalDateTime until;
+
+    private AgendaRecurrence(ChronoUnit unit, int interval, Integer count, LocalDateTime until) {
+        this.unit = unit;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the rule is malformed or uses unsupported parts
+     */
+    static AgendaRecurrence parse(String rule) {
+        String value = rule.startsWith("RRULE:") ? rule.substring("RRULE:".length()) : rule;
+        ChronoUnit unit = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDateTime until = null;
+        for (String part : value.split(";")) {
+            int separator = part.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid recurrence part: " + part);
+            }
+            String name = part.substring(0, separator).trim().toUpperCase();
+            String argument = part.substring(separator + 1).trim();
+            switch (name) {
+                case "FREQ" -> unit = switch (argument.toUpperCase()) {
+                    case "DAILY" -> ChronoUnit.DAYS;
+                    case "WEEKLY" -> ChronoUnit.WEEKS;
+                    case "MONTHLY" -> ChronoUnit.MONTHS;
+                    case "YEARLY" -> ChronoUnit.YEARS;
+                    default -> throw new IllegalArgumentException("Unsupported recurrence frequency: " + argument);
+                };
+                case "INTERVAL" -> interval = parsePositive(name, argument);
+                case "COUNT" -> count = parsePositive(name, argument);
+                case "UNTIL" -> until = parseUntil(argument);
+                default -> throw new IllegalArgumentException("Unsupported recurrence part: " + name);
+            }
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Recurrence rule needs a FREQ");
+        }
+        if (count != null && until != null) {
+            throw new IllegalArgumentException("Recurrence rule cannot have both COUNT and UNTIL");
+        }
+        return new AgendaRecurrence(unit, interval, count, until);
+    }
+
+    // Start of the last occurrence, or null if the series never ends
+    LocalDateTime lastStart(LocalDateTime seriesStart) {
+        if (count != null) {
+            return occurrence(seriesStart, count - 1);
+        }
+        if (until != null) {
+            return occurrence(seriesStart, Math.max(lastIndexAtOrBefore(seriesStart, until), 0));
+        }
+        return null;
+    }
+
+    boolean isOccurrence(LocalDateTime seriesStart, LocalDateTime candidate) {
+        long n = lastIndexAtOrBefore(seriesStart, candidate);
+        if (n < 0 || !occurrence(seriesStart, n).equals(candidate)) {
+            return false;
+        }
+        return (count == null || n < count) && (until == null || !candidate.isAfter(until));
+    }
+
+    /**
+     * Hands the start of every occurrence overlapping [windowStart, windowEnd) to the
+     * sink, in order and at most limit of them. Occurrences before the window are
+     * skipped arithmetically rather than generated.
+     */
+    void forEachStart(LocalDateTime seriesStart, Duration length, LocalDateTime windowStart,
+            LocalDateTime windowEnd, int limit, Consumer<LocalDateTime> sink) {
+        LocalDateTime earliest = windowStart.minus(length);
+        long n = Math.max(lastIndexAtOrBefore(seriesStart, earliest), 0);
+        int emitted = 0;
+        for (; count == null || n < count; n++) {
+            LocalDateTime start = occurrence(seriesStart, n);
+            if ((until != null && start.isAfter(until)) || !start.isBefore(windowEnd) || emitted >= limit) {
+                return;
+            }
+            if (!start.plus(length).isBefore(windowStart)) {
+                sink.accept(start);
+                emitted++;
+            }
+        }
+    }
+
+    private LocalDateTime occurrence(LocalDateTime seriesStart, long n) {
+        return seriesStart.plus(n * interval, unit);
+    }
+
+    /**
+     * Index of the last occurrence starting at or before time, or -1 if the series starts
+     * after it. between() only counts whole units, so an occurrence clamped to the end of
+     * a shorter month (Jan 31 to Feb 28) can be one step ahead of its estimate.
+     */
+    private long lastIndexAtOrBefore(LocalDateTime seriesStart, LocalDateTime time) {
+        if (time.isBefore(seriesStart)) {
+            return -1;
+        }
+        long n = unit.between(seriesStart, time) / interval;
+        while (!occurrence(seriesStart, n + 1).isAfter(time)) {
+            n++;
+        }
+        while (n > 0 && occurrence(seriesStart, n).isAfter(time)) {
+            n--;
+        }
+        return n;
+    }
+
+    private static int parsePositive(String name, String argument) {
+        try {
+            int value = Integer.parseInt(argument);
+            if (value >= 1) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(name + " must be a positive integer");
+    }
+
+    // Date-only values include the whole day; a trailing Z is read as local time
+    private static LocalDateTime parseUntil(String argument) {
+        String value = argument.endsWith("Z") ? argument.substring(0, argument.length() - 1) : argument;
+        try {
+            if (value.length() == 8) {
+                return LocalDate.parse(value, DateTimeFormatter.BASIC_ISO_DATE).atTime(LocalTime.MAX);
+            }
+            return LocalDateTime.parse(value, UNTIL_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid UNTIL: " + argument);
+        }
+    }
+}
@@ -1,10 +1,31 @@
 package com.agro.agenda;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AgendaRepository extends JpaRepository<AgendaEvent, Long> {
+public interface AgendaRepository extends JpaRepository<AgendaEvent, Long>, AgendaRepositoryCustom {
     List<AgendaEvent> findByUserId(Long userId);
 
+    // Row of [count, latest updatedAt] of the user's events
+    @Query("SELECT COUNT(e), MAX(e.updatedAt) FROM AgendaEvent e WHERE e.user.id = :userId")
+    List<Object[]> summarizeByUserId(@Param("userId") Long userId);
+
+    // Read through a server-side cursor; must be consumed inside a transaction
+    @Query("SELECT e FROM AgendaEvent e WHERE e.user.id = :userId ORDER BY e.id")
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<AgendaEvent> streamByUserId(@Param("userId") Long userId);
+
+    Optional<AgendaEvent> findBySourceAndSourceId(AgendaEventSource source, Long sourceId);
+
     List<AgendaEvent> findByUserIdAndFieldId(Long userId, Long fieldId);
 }
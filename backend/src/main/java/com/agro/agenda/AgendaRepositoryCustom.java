@@ -0,0 +1,22 @@
+package com.agro.agenda;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Window queries built with only the filters that are set, so the window bounds reach
+ * the (user_id, start_date) and end_date indexes even under a generic plan.
+ */
+public interface AgendaRepositoryCustom {
+
+    /**
+     * Events overlapping [start, end). Past windows are served by the start_date
+     * index and current ones by the end_date index.
+     */
+    List<AgendaEvent> findFiltered(Long userId, LocalDateTime start, LocalDateTime end,
+            AgendaEvent.EventType eventType, Long fieldId);
+
+    // Recurring events with any occurrence possibly in [start, end)
+    List<AgendaEvent> findSeries(Long userId, LocalDateTime start, LocalDateTime end,
+            AgendaEvent.EventType eventType, Long fieldId);
+}
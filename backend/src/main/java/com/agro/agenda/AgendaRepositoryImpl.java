@@ -0,0 +1,61 @@
+package com.agro.agenda;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class AgendaRepositoryImpl implements AgendaRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    AgendaRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<AgendaEvent> findFiltered(Long userId, LocalDateTime start, LocalDateTime end,
+            AgendaEvent.EventType eventType, Long fieldId) {
+        return find(userId, start, end, eventType, fieldId, false);
+    }
+
+    @Override
+    public List<AgendaEvent> findSeries(Long userId, LocalDateTime start, LocalDateTime end,
+            AgendaEvent.EventType eventType, Long fieldId) {
+        return find(userId, start, end, eventType, fieldId, true);
+    }
+
+    private List<AgendaEvent> find(Long userId, LocalDateTime start, LocalDateTime end,
+            AgendaEvent.EventType eventType, Long fieldId, boolean recurring) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AgendaEvent> cq = cb.createQuery(AgendaEvent.class);
+        Root<AgendaEvent> e = cq.from(AgendaEvent.class);
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(e.get("user").get("id"), userId));
+        if (start != null) {
+            // A series with no end may still have occurrences after any start
+            where.add(recurring
+                    ? cb.or(cb.isNull(e.get("seriesEnd")), cb.greaterThanOrEqualTo(e.get("seriesEnd"), start))
+                    : cb.greaterThanOrEqualTo(e.get("endDate"), start));
+        }
+        if (end != null) {
+            where.add(cb.lessThan(e.get("startDate"), end));
+        }
+        if (eventType != null) {
+            where.add(cb.equal(e.get("eventType"), eventType));
+        }
+        if (fieldId != null) {
+            where.add(cb.equal(e.get("fieldId"), fieldId));
+        }
+        where.add(recurring ? cb.isNotNull(e.get("recurrenceRule")) : cb.isNull(e.get("recurrenceRule")));
+        cq.select(e).where(where.toArray(Predicate[]::new))
+                .orderBy(cb.asc(e.get("startDate")), cb.asc(e.get("id")));
+        return entityManager.createQuery(cq).getResultList();
+    }
+}
@@ -1,35 +1,83 @@
 package com.agro.agenda;
 
 import com.agro.agenda.dto.AgendaCreateDTO;
+import com.agro.agenda.dto.AgendaFilter;
 import com.agro.agenda.dto.AgendaResponseDTO;
 import com.agro.user.User;
 import com.agro.user.UserRepository;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 public class AgendaService {
 
+    // Occurrences of one series returned for a single window
+    private static final int MAX_OCCURRENCES = 1000;
+
     private final AgendaRepository agendaRepository;
+    private final AgendaOccurrenceOverrideRepository overrideRepository;
     private final UserRepository userRepository;
 
-    public AgendaService(AgendaRepository agendaRepository, UserRepository userRepository) {
+    public AgendaService(AgendaRepository agendaRepository, AgendaOccurrenceOverrideRepository overrideRepository,
+            UserRepository userRepository) {
         this.agendaRepository = agendaRepository;
+        this.overrideRepository = overrideRepository;
         this.userRepository = userRepository;
     }
 
+    /**
+     * Recurring events are expanded into their occurrences within the window. Without
+     * an end day a series cannot be expanded, so its stored row is returned instead.
+     */
     @Transactional(readOnly = true)
-    public List<AgendaResponseDTO> getMyEvents(Long userId) {
-        return agendaRepository.findByUserId(userId).stream()
+    public List<AgendaResponseDTO> getMyEvents(Long userId, AgendaFilter filter) {
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        LocalDateTime start = filter.getFrom() != null ? filter.getFrom().atStartOfDay() : null;
+        LocalDateTime end = filter.getTo() != null ? filter.getTo().plusDays(1).atStartOfDay() : null;
+
+        List<AgendaResponseDTO> events = agendaRepository
+                .findFiltered(userId, start, end, filter.getEventType(), filter.getFieldId()).stream()
                 .map(this::mapToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toCollection(ArrayList::new));
+        List<AgendaEvent> series = agendaRepository.findSeries(userId, start, end, filter.getEventType(),
+                filter.getFieldId());
+        if (series.isEmpty()) {
+            return events;
+        }
+
+        if (end == null) {
+            series.forEach(event -> events.add(mapToDTO(event)));
+        } else {
+            Map<Long, Map<LocalDateTime, AgendaOccurrenceOverride>> overrides = new HashMap<>();
+            for (AgendaOccurrenceOverride o : overrideRepository.findByEventIdIn(
+                    series.stream().map(AgendaEvent::getId).collect(Collectors.toList()))) {
+                overrides.computeIfAbsent(o.getEventId(), id -> new HashMap<>()).put(o.getOriginalStart(), o);
+            }
+            LocalDateTime windowStart = start != null ? start : LocalDateTime.of(1, 1, 1, 0, 0);
+            for (AgendaEvent event : series) {
+                expand(event, overrides.getOrDefault(event.getId(), Map.of()), windowStart, end, events);
+            }
+        }
+        events.sort(Comparator.comparing(AgendaResponseDTO::getStartDate).thenComparing(AgendaResponseDTO::getId));
+        return events;
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Transactional
     public AgendaResponseDTO createEvent(Long userId, AgendaCreateDTO createDTO) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -42,11 +90,12 @@ public class AgendaService {
         event.setEventType(createDTO.getEventType());
         event.setFieldId(createDTO.getFieldId());
         event.setUser(user);
+        applyRecurrence(event, createDTO.getRecurrenceRule());
 
         return mapToDTO(agendaRepository.save(event));
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Transactional
     public AgendaResponseDTO updateEvent(Long userId, Long eventId, AgendaCreateDTO updateDTO) {
         AgendaEvent event = agendaRepository.findById(eventId)
                 .orElseThrow(() -> new RuntimeException("Event not found"));
@@ -55,17 +104,30 @@ public class AgendaService {
             throw new RuntimeException("Unauthorized");
         }
 
+        LocalDateTime previousStart = event.getStartDate();
+        String previousRule = event.getRecurrenceRule();
         event.setTitle(updateDTO.getTitle());
         event.setDescription(updateDTO.getDescription());
         event.setStartDate(updateDTO.getStartDate());
         event.setEndDate(updateDTO.getEndDate());
         event.setEventType(updateDTO.getEventType());
         event.setFieldId(updateDTO.getFieldId());
+        applyRecurrence(event, updateDTO.getRecurrenceRule());
+
+        // Overrides of occurrences the new start or rule no longer produces are dropped
+        if (!event.getStartDate().equals(previousStart)
+                || !Objects.equals(event.getRecurrenceRule(), previousRule)) {
+            List<AgendaOccurrenceOverride> overrides = overrideRepository.findByEventIdIn(List.of(eventId));
+            List<AgendaOccurrenceOverride> kept = currentOverrides(event, overrides);
+            overrideRepository.deleteAll(overrides.stream()
+                    .filter(override -> !kept.contains(override))
+                    .collect(Collectors.toList()));
+        }
 
         return mapToDTO(agendaRepository.save(event));
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Transactional
     public void deleteEvent(Long userId, Long eventId) {
         AgendaEvent event = agendaRepository.findById(eventId)
                 .orElseThrow(() -> new RuntimeException("Event not found"));
@@ -74,9 +136,94 @@ public class AgendaService {
             throw new RuntimeException("Unauthorized");
         }
 
+        overrideRepository.deleteByEventId(eventId);
         agendaRepository.delete(event);
     }
 
+    // Moves or retitles one occurrence of a recurring event
+    @Transactional
+    public AgendaResponseDTO updateOccurrence(Long userId, Long eventId, LocalDateTime occurrenceStart,
+            AgendaCreateDTO updateDTO) {
+        AgendaEvent event = findSeriesOf(userId, eventId, occurrenceStart);
+        AgendaOccurrenceOverride override = overrideRepository
+                .findByEventIdAndOriginalStart(eventId, occurrenceStart)
+                .orElseGet(() -> new AgendaOccurrenceOverride(eventId, occurrenceStart));
+        override.setCancelled(false);
+        override.setTitle(updateDTO.getTitle());
+        override.setDescription(updateDTO.getDescription());
+        override.setStartDate(updateDTO.getStartDate());
+        override.setEndDate(updateDTO.getEndDate());
+        return mapOverride(event, overrideRepository.save(override));
+    }
+
+    @Transactional
+    public void cancelOccurrence(Long userId, Long eventId, LocalDateTime occurrenceStart) {
+        findSeriesOf(userId, eventId, occurrenceStart);
+        AgendaOccurrenceOverride override = overrideRepository
+                .findByEventIdAndOriginalStart(eventId, occurrenceStart)
+                .orElseGet(() -> new AgendaOccurrenceOverride(eventId, occurrenceStart));
+        override.setCancelled(true);
+        overrideRepository.save(override);
+    }
+
+    private AgendaEvent findSeriesOf(Long userId, Long eventId, LocalDateTime occurrenceStart) {
+        AgendaEvent event = agendaRepository.findById(eventId)
+                .orElseThrow(() -> new RuntimeException("Event not found"));
+
+        if (!event.getUser().getId().equals(userId)) {
+            throw new RuntimeException("Unauthorized");
+        }
+        if (event.getRecurrenceRule() == null
+                || !AgendaRecurrence.parse(event.getRecurrenceRule()).isOccurrence(event.getStartDate(),
+                        occurrenceStart)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Occurrence not found");
+        }
+        return event;
+    }
+
+    private void applyRecurrence(AgendaEvent event, String rule) {
+        if (rule == null || rule.isBlank()) {
+            event.setRecurrenceRule(null);
+            event.setSeriesEnd(null);
+            return;
+        }
+        AgendaRecurrence recurrence;
+        try {
+            recurrence = AgendaRecurrence.parse(rule.trim());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (event.getEndDate().isBefore(event.getStartDate())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "endDate must not be before startDate");
+        }
+        LocalDateTime lastStart = recurrence.lastStart(event.getStartDate());
+        event.setRecurrenceRule(rule.trim());
+        event.setSeriesEnd(lastStart != null
+                ? lastStart.plus(Duration.between(event.getStartDate(), event.getEndDate()))
+                : null);
+    }
+
+    private void expand(AgendaEvent event, Map<LocalDateTime, AgendaOccurrenceOverride> overrides,
+            LocalDateTime windowStart, LocalDateTime windowEnd, List<AgendaResponseDTO> sink) {
+        Duration length = Duration.between(event.getStartDate(), event.getEndDate());
+        AgendaRecurrence.parse(event.getRecurrenceRule()).forEachStart(event.getStartDate(), length,
+                windowStart, windowEnd, MAX_OCCURRENCES, occurrenceStart -> {
+                    if (!overrides.containsKey(occurrenceStart)) {
+                        sink.add(new AgendaResponseDTO(event.getId(), event.getTitle(), event.getDescription(),
+                                occurrenceStart, occurrenceStart.plus(length), event.getEventType(),
+                                event.getFieldId(), event.getRecurrenceRule(), occurrenceStart));
+                    }
+                });
+        // Moved occurrences show up where they were moved to
+        for (AgendaOccurrenceOverride override : currentOverrides(event, overrides.values())) {
+            AgendaResponseDTO moved = mapOverride(event, override);
+            if (!override.isCancelled() && !moved.getEndDate().isBefore(windowStart)
+                    && moved.getStartDate().isBefore(windowEnd)) {
+                sink.add(moved);
+            }
+        }
+    }
+
     private AgendaResponseDTO mapToDTO(AgendaEvent event) {
         return new AgendaResponseDTO(
                 event.getId(),
@@ -85,6 +232,40 @@ public class AgendaService {
                 event.getStartDate(),
                 event.getEndDate(),
                 event.getEventType(),
-                event.getFieldId());
+                event.getFieldId(),
+                event.getRecurrenceRule(),
+                null);
+    }
+
+    /**
+     * Overrides whose original start is still an occurrence of the series. Others are
+     * left over from an earlier start or rule and must not be shown or exported.
+     */
+    static List<AgendaOccurrenceOverride> currentOverrides(AgendaEvent event,
+            Collection<AgendaOccurrenceOverride> overrides) {
+        if (event.getRecurrenceRule() == null || overrides.isEmpty()) {
+            return List.of();
+        }
+        AgendaRecurrence recurrence = AgendaRecurrence.parse(event.getRecurrenceRule());
+        return overrides.stream()
+                .filter(override -> recurrence.isOccurrence(event.getStartDate(), override.getOriginalStart()))
+                .collect(Collectors.toList());
+    }
+
+    // The occurrence as the override leaves it; also used by the calendar feed
+    static AgendaResponseDTO mapOverride(AgendaEvent event, AgendaOccurrenceOverride override) {
+        LocalDateTime start = override.getStartDate() != null ? override.getStartDate() : override.getOriginalStart();
+        LocalDateTime end = override.getEndDate() != null ? override.getEndDate()
+                : start.plus(Duration.between(event.getStartDate(), event.getEndDate()));
+        return new AgendaResponseDTO(
+                event.getId(),
+                override.getTitle() != null ? override.getTitle() : event.getTitle(),
+                override.getDescription() != null ? override.getDescription() : event.getDescription(),
+                start,
+                end,
+                event.getEventType(),
+                event.getFieldId(),
+                event.getRecurrenceRule(),
+                override.getOriginalStart());
     }
 }
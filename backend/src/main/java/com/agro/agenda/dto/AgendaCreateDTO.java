@@ -14,6 +14,8 @@ public class AgendaCreateDTO {
     @jakarta.validation.constraints.NotNull
     private EventType eventType;
     private Long fieldId;
+    // Optional RRULE, e.g. FREQ=MONTHLY;INTERVAL=6
+    private String recurrenceRule;
 
     public String getTitle() {
         return title;
@@ -62,4 +64,12 @@ public class AgendaCreateDTO {
     public void setFieldId(Long fieldId) {
         this.fieldId = fieldId;
     }
+
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+
+    public void setRecurrenceRule(String recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+    }
 }
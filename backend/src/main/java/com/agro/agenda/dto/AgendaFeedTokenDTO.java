@@ -0,0 +1,20 @@
+package com.agro.agenda.dto;
+
+public class AgendaFeedTokenDTO {
+    private String token;
+    // Path to subscribe to, relative to the API host
+    private String path;
+
+    public AgendaFeedTokenDTO(String token, String path) {
+        this.token = token;
+        this.path = path;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
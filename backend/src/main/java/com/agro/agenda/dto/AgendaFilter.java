@@ -0,0 +1,53 @@
+package com.agro.agenda.dto;
+
+import com.agro.agenda.AgendaEvent;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Optional query parameters of the agenda listing; null means no filter
+public class AgendaFilter {
+
+    // Events overlapping [from, to] are returned, both days included
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private AgendaEvent.EventType eventType;
+
+    private Long fieldId;
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public AgendaEvent.EventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(AgendaEvent.EventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getFieldId() {
+        return fieldId;
+    }
+
+    public void setFieldId(Long fieldId) {
+        this.fieldId = fieldId;
+    }
+}
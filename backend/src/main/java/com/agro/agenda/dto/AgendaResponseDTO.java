@@ -11,9 +11,17 @@ public class AgendaResponseDTO {
     private LocalDateTime endDate;
     private EventType eventType;
     private Long fieldId;
+    private String recurrenceRule;
+    // Start the rule gives this occurrence, null for single events
+    private LocalDateTime occurrenceStart;
 
     public AgendaResponseDTO(Long id, String title, String description, LocalDateTime startDate, LocalDateTime endDate,
             EventType eventType, Long fieldId) {
+        this(id, title, description, startDate, endDate, eventType, fieldId, null, null);
+    }
+
+    public AgendaResponseDTO(Long id, String title, String description, LocalDateTime startDate, LocalDateTime endDate,
+            EventType eventType, Long fieldId, String recurrenceRule, LocalDateTime occurrenceStart) {
         this.id = id;
         this.title = title;
         this.description = description;
@@ -21,6 +29,8 @@ public class AgendaResponseDTO {
         this.endDate = endDate;
         this.eventType = eventType;
         this.fieldId = fieldId;
+        this.recurrenceRule = recurrenceRule;
+        this.occurrenceStart = occurrenceStart;
     }
 
     public Long getId() {
@@ -50,4 +60,12 @@ public class AgendaResponseDTO {
     public Long getFieldId() {
         return fieldId;
     }
+
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+
+    public LocalDateTime getOccurrenceStart() {
+        return occurrenceStart;
+    }
 }
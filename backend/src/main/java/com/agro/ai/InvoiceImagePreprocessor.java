@@ -0,0 +1,125 @@
+package com.agro.ai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * Prepares a decoded photo for OCR: applies the EXIF orientation and converts to
+ * grayscale in a single pass into one 8-bit raster, then binarizes that raster in
+ * place with a local-mean (Bradley) threshold, which copes with the uneven lighting
+ * of phone photos better than a global one.
+ */
+@Component
+public class InvoiceImagePreprocessor {
+
+    // A pixel is black when it is this many percent darker than its neighbourhood
+    private static final int THRESHOLD_PERCENT = 15;
+
+    private final boolean binarize;
+
+    public InvoiceImagePreprocessor(@Value("${invoice-scan.preprocess.binarize:true}") boolean binarize) {
+        this.binarize = binarize;
+    }
+
+    public BufferedImage preprocess(BufferedImage source, int orientation) {
+        int sourceWidth = source.getWidth();
+        int sourceHeight = source.getHeight();
+        boolean swap = orientation >= 5 && orientation <= 8;
+        int width = swap ? sourceHeight : sourceWidth;
+        int height = swap ? sourceWidth : sourceHeight;
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] gray = ((DataBufferByte) target.getRaster().getDataBuffer()).getData();
+
+        int[] row = new int[sourceWidth];
+        for (int sy = 0; sy < sourceHeight; sy++) {
+            source.getRGB(0, sy, sourceWidth, 1, row, 0, sourceWidth);
+            for (int sx = 0; sx < sourceWidth; sx++) {
+                int rgb = row[sx];
+                int luminance = (77 * ((rgb >> 16) & 0xFF) + 150 * ((rgb >> 8) & 0xFF) + 29 * (rgb & 0xFF)) >> 8;
+                int dx;
+                int dy;
+                switch (orientation) {
+                    case 2 -> { dx = sourceWidth - 1 - sx; dy = sy; }
+                    case 3 -> { dx = sourceWidth - 1 - sx; dy = sourceHeight - 1 - sy; }
+                    case 4 -> { dx = sx; dy = sourceHeight - 1 - sy; }
+                    case 5 -> { dx = sy; dy = sx; }
+                    case 6 -> { dx = sourceHeight - 1 - sy; dy = sx; }
+                    case 7 -> { dx = sourceHeight - 1 - sy; dy = sourceWidth - 1 - sx; }
+                    case 8 -> { dx = sy; dy = sourceWidth - 1 - sx; }
+                    default -> { dx = sx; dy = sy; }
+                }
+                gray[dy * width + dx] = (byte) luminance;
+            }
+        }
+
+        if (binarize) {
+            binarize(gray, width, height);
+        }
+        return target;
+    }
+
+    /**
+     * Compares each pixel with the mean of a square window around it. Column sums
+     * of the window are kept incrementally; the original values of the rows still
+     * in the window are kept in a ring buffer, so memory grows with the width only.
+     */
+    private void binarize(byte[] gray, int width, int height) {
+        int radius = Math.max(8, Math.max(width, height) / 32);
+        int ringSize = 2 * radius + 2;
+        byte[][] ring = new byte[ringSize][width];
+        int[] columnSums = new int[width];
+
+        for (int y = 0; y <= Math.min(radius, height - 1); y++) {
+            addRow(gray, width, y, ring, columnSums);
+        }
+
+        for (int y = 0; y < height; y++) {
+            if (y > 0) {
+                int removed = y - radius - 1;
+                if (removed >= 0) {
+                    byte[] old = ring[removed % ringSize];
+                    for (int x = 0; x < width; x++) {
+                        columnSums[x] -= old[x] & 0xFF;
+                    }
+                }
+                int added = y + radius;
+                if (added < height) {
+                    addRow(gray, width, added, ring, columnSums);
+                }
+            }
+            int rows = Math.min(height - 1, y + radius) - Math.max(0, y - radius) + 1;
+            byte[] original = ring[y % ringSize];
+
+            long windowSum = 0;
+            for (int x = 0; x <= Math.min(radius, width - 1); x++) {
+                windowSum += columnSums[x];
+            }
+            for (int x = 0; x < width; x++) {
+                if (x > 0) {
+                    if (x + radius < width) {
+                        windowSum += columnSums[x + radius];
+                    }
+                    if (x - radius - 1 >= 0) {
+                        windowSum -= columnSums[x - radius - 1];
+                    }
+                }
+                long count = (long) (Math.min(width - 1, x + radius) - Math.max(0, x - radius) + 1) * rows;
+                long value = original[x] & 0xFF;
+                boolean dark = value * count * 100 <= windowSum * (100 - THRESHOLD_PERCENT);
+                gray[y * width + x] = dark ? 0 : (byte) 0xFF;
+            }
+        }
+    }
+
+    private void addRow(byte[] gray, int width, int y, byte[][] ring, int[] columnSums) {
+        byte[] slot = ring[y % ring.length];
+        System.arraycopy(gray, y * width, slot, 0, width);
+        for (int x = 0; x < width; x++) {
+            columnSums[x] += slot[x] & 0xFF;
+        }
+    }
+}
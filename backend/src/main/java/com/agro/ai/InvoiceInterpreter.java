@@ -0,0 +1,10 @@
+package com.agro.ai;
+
+/**
+ * Turns the OCR text of an invoice into expense fields. Replace the bean to run
+ * scans against a local stub instead of Groq.
+ */
+public interface InvoiceInterpreter {
+
+    InvoiceScanResponseDTO interpret(String ocrText) throws Exception;
+}
@@ -0,0 +1,129 @@
+package com.agro.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scan results addressed by the SHA-256 of the uploaded bytes and of the
+ * normalized OCR text, so a repeated photo skips the whole pipeline and a
+ * re-photographed receipt skips the interpretation. Keys are scoped to the user.
+ * Recent entries live in a size-bounded in-memory cache in front of the database table.
+ */
+@Component
+public class InvoiceScanCache {
+
+    private final InvoiceScanCacheRepository repository;
+    private final ObjectMapper objectMapper;
+    private final long ttlDays;
+    private final Cache<String, MemoryEntry> memory;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public InvoiceScanCache(InvoiceScanCacheRepository repository, ObjectMapper objectMapper,
+            @Value("${invoice-scan.cache.memory-entries:500}") int memoryEntries,
+            @Value("${invoice-scan.cache.ttl-days:30}") long ttlDays) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttlDays = ttlDays;
+        this.memory = Caffeine.newBuilder().maximumSize(memoryEntries).build();
+    }
+
+    public static String imageKey(Long userId, byte[] imageBytes) {
+        return userId + ":img:" + sha256(imageBytes);
+    }
+
+    // Case and whitespace differences between two OCR runs of the same receipt are ignored
+    public static String textKey(Long userId, String ocrText) {
+        String normalized = ocrText.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+        return userId + ":txt:" + sha256(normalized.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Optional<InvoiceScanResponseDTO> get(String key) {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ttlDays);
+        MemoryEntry cached = memory.getIfPresent(key);
+        if (cached != null) {
+            if (cached.createdAt().isAfter(cutoff)) {
+                memoryHits.increment();
+                return Optional.of(cached.result());
+            }
+            memory.invalidate(key);
+        }
+        Optional<InvoiceScanCacheEntry> stored = repository.findByCacheKey(key)
+                .filter(entry -> entry.getCreatedAt().isAfter(cutoff));
+        if (stored.isEmpty()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        persistentHits.increment();
+        InvoiceScanResponseDTO result = fromJson(stored.get().getResult());
+        // Keeps the row's age, so the entry expires with it
+        memory.put(key, new MemoryEntry(result, stored.get().getCreatedAt()));
+        return Optional.of(result);
+    }
+
+    @Transactional
+    public void put(InvoiceScanResponseDTO result, String... keys) {
+        String json = toJson(result);
+        LocalDateTime now = LocalDateTime.now();
+        for (String key : keys) {
+            repository.upsert(key, json, now);
+            memory.put(key, new MemoryEntry(result, now));
+        }
+    }
+
+    @Scheduled(cron = "${invoice-scan.cache.cleanup-cron:0 30 3 * * *}")
+    @Transactional
+    public void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ttlDays);
+        repository.deleteOlderThan(cutoff);
+        memory.asMap().values().removeIf(entry -> !entry.createdAt().isAfter(cutoff));
+    }
+
+    public InvoiceScanCacheStatsDTO getStats() {
+        return new InvoiceScanCacheStatsDTO((int) memory.estimatedSize(), memoryHits.sum(), persistentHits.sum(), misses.sum());
+    }
+
+    private String toJson(InvoiceScanResponseDTO result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize scan result", e);
+        }
+    }
+
+    private InvoiceScanResponseDTO fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, InvoiceScanResponseDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not read cached scan result", e);
+        }
+    }
+
+    private record MemoryEntry(InvoiceScanResponseDTO result, LocalDateTime createdAt) {
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.agro.ai;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "invoice_scan_cache", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_invoice_scan_cache_key", columnNames = { "cache_key" })
+}, indexes = {
+        @Index(name = "idx_invoice_scan_cache_created_at", columnList = "created_at")
+})
+public class InvoiceScanCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // "<userId>:<img|txt>:<sha-256 hex>"
+    @Column(name = "cache_key", nullable = false, length = 100)
+    private String cacheKey;
+
+    // InvoiceScanResponseDTO as JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public InvoiceScanCacheEntry() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.agro.ai;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface InvoiceScanCacheRepository extends JpaRepository<InvoiceScanCacheEntry, Long> {
+
+    Optional<InvoiceScanCacheEntry> findByCacheKey(String cacheKey);
+
+    @Modifying
+    @Query(value = "INSERT INTO invoice_scan_cache (cache_key, result, created_at) VALUES (:key, :result, :createdAt) "
+            + "ON CONFLICT (cache_key) DO UPDATE SET result = EXCLUDED.result, created_at = EXCLUDED.created_at",
+            nativeQuery = true)
+    void upsert(@Param("key") String key, @Param("result") String result,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("DELETE FROM InvoiceScanCacheEntry e WHERE e.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
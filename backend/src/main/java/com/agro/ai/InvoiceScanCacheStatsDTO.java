@@ -0,0 +1,31 @@
+package com.agro.ai;
+
+public class InvoiceScanCacheStatsDTO {
+    private final int memoryEntries;
+    private final long memoryHits;
+    private final long persistentHits;
+    private final long misses;
+
+    public InvoiceScanCacheStatsDTO(int memoryEntries, long memoryHits, long persistentHits, long misses) {
+        this.memoryEntries = memoryEntries;
+        this.memoryHits = memoryHits;
+        this.persistentHits = persistentHits;
+        this.misses = misses;
+    }
+
+    public int getMemoryEntries() {
+        return memoryEntries;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public long getPersistentHits() {
+        return persistentHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -1,26 +1,125 @@
 package com.agro.ai;
 
 import com.agro.user.User;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/v1/ai")
 public class InvoiceScanController {
 
-    private final InvoiceScanService invoiceScanService;
+    private static final long SCAN_TIMEOUT_MS = 120000;
+
+    private final InvoiceScanJobService jobService;
+    private final OcrEnginePool ocrEnginePool;
+    private final InvoiceScanCache scanCache;
 
-    public InvoiceScanController(InvoiceScanService invoiceScanService) {
-        this.invoiceScanService = invoiceScanService;
+    public InvoiceScanController(InvoiceScanJobService jobService, OcrEnginePool ocrEnginePool,
+            InvoiceScanCache scanCache) {
+        this.jobService = jobService;
+        this.ocrEnginePool = ocrEnginePool;
+        this.scanCache = scanCache;
     }
 
+    // Waits for the scan without holding a request thread
     @PostMapping("/scan-invoice")
-    public ResponseEntity<?> scanInvoice(
+    public DeferredResult<ResponseEntity<?>> scanInvoice(
             @AuthenticationPrincipal User user,
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file) throws IOException {
+        DeferredResult<ResponseEntity<?>> deferred = new DeferredResult<>(SCAN_TIMEOUT_MS,
+                ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("Invoice scan timed out"));
+
+        ResponseEntity<?> invalid = validate(file);
+        if (invalid != null) {
+            deferred.setResult(invalid);
+            return deferred;
+        }
 
+        InvoiceScanJob job;
+        try {
+            job = jobService.submit(user.getId(), file.getBytes());
+        } catch (ResponseStatusException e) {
+            deferred.setResult(ResponseEntity.status(e.getStatusCode()).body(e.getReason()));
+            return deferred;
+        }
+        job.getCompletion().whenComplete((result, error) -> {
+            if (error == null) {
+                deferred.setResult(ResponseEntity.ok(result));
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof ResponseStatusException e) {
+                deferred.setResult(ResponseEntity.status(e.getStatusCode()).body(e.getReason()));
+            } else {
+                deferred.setResult(ResponseEntity.internalServerError()
+                        .body("Error scanning invoice: " + cause.getMessage()));
+            }
+        });
+        return deferred;
+    }
+
+    @PostMapping("/scan-invoice/jobs")
+    public ResponseEntity<?> submitScan(
+            @AuthenticationPrincipal User user,
+            @RequestParam("file") MultipartFile file) throws IOException {
+        ResponseEntity<?> invalid = validate(file);
+        if (invalid != null) {
+            return invalid;
+        }
+        InvoiceScanJob job = jobService.submit(user.getId(), file.getBytes());
+        return ResponseEntity.accepted().body(new InvoiceScanJobDTO(job));
+    }
+
+    @GetMapping("/scan-invoice/jobs/{jobId}")
+    public ResponseEntity<InvoiceScanJobDTO> getScan(
+            @AuthenticationPrincipal User user,
+            @PathVariable String jobId) {
+        return ResponseEntity.ok(new InvoiceScanJobDTO(jobService.getJob(user.getId(), jobId)));
+    }
+
+    // Sends the job once it finishes, then closes the stream
+    @GetMapping(value = "/scan-invoice/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToScan(
+            @AuthenticationPrincipal User user,
+            @PathVariable String jobId) {
+        InvoiceScanJob job = jobService.getJob(user.getId(), jobId);
+        SseEmitter emitter = new SseEmitter(SCAN_TIMEOUT_MS);
+        job.getCompletion().whenComplete((result, error) -> {
+            try {
+                emitter.send(SseEmitter.event().name("scan").data(new InvoiceScanJobDTO(job)));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/ocr/stats")
+    public ResponseEntity<OcrStatsDTO> getOcrStats() {
+        return ResponseEntity.ok(ocrEnginePool.getStats());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/scan-cache/stats")
+    public ResponseEntity<InvoiceScanCacheStatsDTO> getScanCacheStats() {
+        return ResponseEntity.ok(scanCache.getStats());
+    }
+
+    private ResponseEntity<?> validate(MultipartFile file) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("No file provided");
         }
@@ -30,15 +129,6 @@ public class InvoiceScanController {
         if (contentType == null || (!contentType.startsWith("image/") && !contentType.equals("application/pdf"))) {
             return ResponseEntity.badRequest().body("Only image files and PDFs are supported");
         }
-
-        try {
-            InvoiceScanResponseDTO result = invoiceScanService.scanInvoice(file);
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            System.err.println("Invoice scan failed: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.internalServerError()
-                    .body("Error scanning invoice: " + e.getMessage());
-        }
+        return null;
     }
 }
@@ -0,0 +1,93 @@
+package com.agro.ai;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+public class InvoiceScanJob {
+
+    public enum Status {
+        QUEUED,
+        DECODING,
+        OCR,
+        INTERPRETING,
+        DONE,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long userId;
+    private final Instant createdAt = Instant.now();
+    private final CompletableFuture<InvoiceScanResponseDTO> completion = new CompletableFuture<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int attempts;
+    private volatile InvoiceScanResponseDTO result;
+    private volatile String error;
+    private volatile Instant updatedAt = createdAt;
+
+    public InvoiceScanJob(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    // Completes with the result, or exceptionally with the failure of the last attempt
+    public CompletableFuture<InvoiceScanResponseDTO> getCompletion() {
+        return completion;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public InvoiceScanResponseDTO getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    void startStage(Status stage) {
+        this.status = stage;
+        this.attempts++;
+        this.updatedAt = Instant.now();
+    }
+
+    void succeed(InvoiceScanResponseDTO result) {
+        this.result = result;
+        this.status = Status.DONE;
+        this.updatedAt = Instant.now();
+        completion.complete(result);
+    }
+
+    void fail(Throwable cause) {
+        this.error = cause.getMessage();
+        this.status = Status.FAILED;
+        this.updatedAt = Instant.now();
+        completion.completeExceptionally(cause);
+    }
+}
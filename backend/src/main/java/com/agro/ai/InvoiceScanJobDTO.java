@@ -0,0 +1,52 @@
+package com.agro.ai;
+
+import java.time.Instant;
+
+public class InvoiceScanJobDTO {
+    private final String id;
+    private final InvoiceScanJob.Status status;
+    private final int attempts;
+    private final InvoiceScanResponseDTO result;
+    private final String error;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+
+    public InvoiceScanJobDTO(InvoiceScanJob job) {
+        this.id = job.getId();
+        this.status = job.getStatus();
+        this.attempts = job.getAttempts();
+        this.result = job.getResult();
+        this.error = job.getError();
+        this.createdAt = job.getCreatedAt();
+        this.updatedAt = job.getUpdatedAt();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public InvoiceScanJob.Status getStatus() {
+        return status;
+    }
+
+    // Stage runs so far, retries included
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public InvoiceScanResponseDTO getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,218 @@
+package com.agro.ai;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs invoice scans off the request thread as a pipeline of decode, OCR and
+ * interpretation stages, each on its own executor. OCR and interpretation are
+ * retried with a growing delay; finished jobs are kept for a while for polling.
+ * Results are cached by content, so repeated uploads skip the stages. Jobs live
+ * in this process only: they do not survive a restart and are not visible to
+ * other instances.
+ */
+@Service
+public class InvoiceScanJobService {
+
+    private final InvoiceScanService scanService;
+    private final InvoiceInterpreter interpreter;
+    private final InvoiceScanCache cache;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final int maxPending;
+    private final Duration retention;
+
+    private final ExecutorService decodeExecutor;
+    private final ExecutorService renderExecutor;
+    private final ExecutorService ocrExecutor;
+    private final ExecutorService interpretExecutor;
+
+    private final Map<String, InvoiceScanJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public InvoiceScanJobService(InvoiceScanService scanService, InvoiceInterpreter interpreter,
+            InvoiceScanCache cache,
+            OcrEnginePool ocrEnginePool,
+            @Value("${invoice-scan.max-attempts:3}") int maxAttempts,
+            @Value("${invoice-scan.retry-delay-ms:2000}") long retryDelayMs,
+            @Value("${invoice-scan.max-pending:100}") int maxPending,
+            @Value("${invoice-scan.interpret-threads:4}") int interpretThreads,
+            @Value("${invoice-scan.render-threads:2}") int renderThreads,
+            @Value("${invoice-scan.job-retention-ms:3600000}") long retentionMs) {
+        this.scanService = scanService;
+        this.interpreter = interpreter;
+        this.cache = cache;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+        this.maxPending = maxPending;
+        this.retention = Duration.ofMillis(retentionMs);
+        this.decodeExecutor = Executors.newFixedThreadPool(2, threads("scan-decode"));
+        // Scanned PDFs render here, so long documents never hold up photo decoding
+        this.renderExecutor = Executors.newFixedThreadPool(renderThreads, threads("scan-render"));
+        // No more OCR threads than engines, so they never wait on the pool
+        this.ocrExecutor = Executors.newFixedThreadPool(ocrEnginePool.getSize(), threads("scan-ocr"));
+        this.interpretExecutor = Executors.newFixedThreadPool(interpretThreads, threads("scan-interpret"));
+    }
+
+    public InvoiceScanJob submit(Long userId, byte[] imageBytes) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Demasiados escaneos en curso, intentá de nuevo en unos segundos.");
+        }
+        InvoiceScanJob job = new InvoiceScanJob(userId);
+        jobs.put(job.getId(), job);
+
+        // Anything thrown before the pipeline is wired would otherwise leak the pending slot
+        try {
+            // The same photo uploaded again is answered without running any stage
+            String imageKey = InvoiceScanCache.imageKey(userId, imageBytes);
+            Optional<InvoiceScanResponseDTO> cached = cache.get(imageKey);
+            if (cached.isPresent()) {
+                pending.decrementAndGet();
+                job.succeed(cached.get());
+                return job;
+            }
+
+            CompletableFuture<String> ocrText = scanService.isPdf(imageBytes)
+                    ? pdfText(job, imageBytes)
+                    : imageText(job, imageBytes);
+            // The text lookup may hit the database, so it runs off the OCR threads
+            ocrText.thenComposeAsync(text -> {
+                String textKey = InvoiceScanCache.textKey(userId, text);
+                Optional<InvoiceScanResponseDTO> sameText = cache.get(textKey);
+                if (sameText.isPresent()) {
+                    remember(sameText.get(), imageKey);
+                    return CompletableFuture.completedFuture(sameText.get());
+                }
+                return stage(job, InvoiceScanJob.Status.INTERPRETING, interpretExecutor,
+                        () -> interpreter.interpret(text), 1)
+                        .thenApply(result -> {
+                            remember(result, imageKey, textKey);
+                            return result;
+                        });
+            }, interpretExecutor).whenComplete((result, error) -> {
+                pending.decrementAndGet();
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    System.err.println("Invoice scan " + job.getId() + " failed: " + cause.getMessage());
+                    job.fail(cause);
+                } else {
+                    job.succeed(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            System.err.println("Invoice scan " + job.getId() + " failed: " + e.getMessage());
+            job.fail(e);
+        }
+        return job;
+    }
+
+    private CompletableFuture<String> imageText(InvoiceScanJob job, byte[] imageBytes) {
+        return stage(job, InvoiceScanJob.Status.DECODING, decodeExecutor, () -> scanService.decode(imageBytes), 1)
+                .thenCompose(image -> stage(job, InvoiceScanJob.Status.OCR, ocrExecutor,
+                        () -> scanService.extractText(image), 1));
+    }
+
+    // PDFs with a text layer skip OCR; scanned ones are rendered and OCR'd page by page,
+    // each page retried on its own
+    private CompletableFuture<String> pdfText(InvoiceScanJob job, byte[] pdfBytes) {
+        return stage(job, InvoiceScanJob.Status.DECODING, decodeExecutor,
+                () -> Optional.ofNullable(scanService.extractPdfText(pdfBytes)), 1)
+                .thenCompose(embedded -> embedded.isPresent()
+                        ? CompletableFuture.completedFuture(embedded.get())
+                        : scanService.ocrPdf(pdfBytes, renderExecutor, page -> stage(job,
+                                InvoiceScanJob.Status.OCR, ocrExecutor, () -> scanService.ocrPage(page), 1)));
+    }
+
+    public InvoiceScanJob getJob(Long userId, String jobId) {
+        InvoiceScanJob job = jobs.get(jobId);
+        if (job == null || !job.getUserId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Scan job not found");
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${invoice-scan.cleanup-interval-ms:300000}")
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getUpdatedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        decodeExecutor.shutdownNow();
+        renderExecutor.shutdownNow();
+        ocrExecutor.shutdownNow();
+        interpretExecutor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> stage(InvoiceScanJob job, InvoiceScanJob.Status status, Executor executor,
+            Callable<T> work, int attempt) {
+        return CompletableFuture.supplyAsync(() -> {
+            job.startStage(status);
+            try {
+                return work.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor).handle((value, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(value);
+            }
+            Throwable cause = unwrap(error);
+            if (attempt >= maxAttempts || cause instanceof InvoiceScanRejectedException
+                    || status == InvoiceScanJob.Status.DECODING) {
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+            Executor delayed = CompletableFuture.delayedExecutor(retryDelayMs * attempt, TimeUnit.MILLISECONDS,
+                    executor);
+            return stage(job, status, delayed, work, attempt + 1);
+        }).thenCompose(next -> next);
+    }
+
+    // A cache write failure must not fail a scan that already succeeded
+    private void remember(InvoiceScanResponseDTO result, String... keys) {
+        try {
+            cache.put(result, keys);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to cache invoice scan result: " + e.getMessage());
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.agro.ai;
+
+/**
+ * The scan cannot succeed with this input or configuration, so it is not retried.
+ */
+public class InvoiceScanRejectedException extends RuntimeException {
+
+    public InvoiceScanRejectedException(String message) {
+        super(message);
+    }
+}
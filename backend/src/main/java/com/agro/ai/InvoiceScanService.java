@@ -1,174 +1,196 @@
 package com.agro.ai;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.stream.ImageInputStream;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import org.w3c.dom.Node;
 import org.w3c.dom.NamedNodeMap;
 
 @Service
 public class InvoiceScanService {
 
-    private static final String GROQ_API_URL = "https://api.groq.com/openai/v1/chat/completions";
-
-    @Value("${groq.api.key:}")
-    private String groqApiKey;
-
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    public InvoiceScanResponseDTO scanInvoice(MultipartFile file) throws Exception {
-        if (groqApiKey == null || groqApiKey.isBlank()) {
-            throw new RuntimeException("Groq API key is not configured. Set GROQ_API_KEY in your .env file.");
-        }
+    // Below this many non-blank characters the text layer is treated as missing
+    private static final int MIN_TEXT_LAYER_CHARS = 20;
+    private static final float PDF_RENDER_DPI = 300;
+
+    private final OcrEnginePool ocrEnginePool;
+    private final InvoiceImagePreprocessor preprocessor;
+    private final int maxPdfPages;
+    private final int maxImageDimension;
+
+    public InvoiceScanService(OcrEnginePool ocrEnginePool, InvoiceImagePreprocessor preprocessor,
+            @Value("${invoice-scan.pdf.max-pages:20}") int maxPdfPages,
+            @Value("${invoice-scan.preprocess.max-dimension:2500}") int maxImageDimension) {
+        this.ocrEnginePool = ocrEnginePool;
+        this.preprocessor = preprocessor;
+        this.maxPdfPages = maxPdfPages;
+        this.maxImageDimension = maxImageDimension;
+    }
 
-        // Step 1: OCR — extract text from image using Tesseract
-        String extractedText = extractTextFromImage(file);
+    public boolean isPdf(byte[] bytes) {
+        return bytes.length >= 4 && bytes[0] == '%' && bytes[1] == 'P' && bytes[2] == 'D' && bytes[3] == 'F';
+    }
 
-        if (extractedText == null || extractedText.isBlank()) {
-            throw new RuntimeException("No se pudo extraer texto de la imagen. Asegurate de que la foto sea clara.");
+    /**
+     * Text embedded in the PDF, or null when it has no usable text layer (scans).
+     */
+    public String extractPdfText(byte[] pdfBytes) throws IOException {
+        try (PDDocument document = loadPdf(pdfBytes)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            stripper.setEndPage(Math.min(document.getNumberOfPages(), maxPdfPages));
+            String text = stripper.getText(document);
+            return text.replaceAll("\\s", "").length() >= MIN_TEXT_LAYER_CHARS ? text : null;
         }
+    }
 
-        System.out.println("=== OCR Extracted Text ===");
-        System.out.println(extractedText);
-        System.out.println("=========================");
+    /**
+     * OCRs a scanned PDF. Pages are rendered one at a time on the render executor and
+     * handed to pageOcr as they come; a page is only rendered once the page as many
+     * places ahead as there are OCR engines has been read, so rendered images never
+     * pile up. Nothing here blocks a thread; the text is joined in page order.
+     */
+    public CompletableFuture<String> ocrPdf(byte[] pdfBytes, Executor renderExecutor,
+            Function<BufferedImage, CompletableFuture<String>> pageOcr) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadPdf(pdfBytes);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, renderExecutor).thenCompose(document -> {
+            PDFRenderer renderer = new PDFRenderer(document);
+            int pageCount = Math.min(document.getNumberOfPages(), maxPdfPages);
+            int renderedAhead = ocrEnginePool.getSize();
+            List<CompletableFuture<String>> pages = new ArrayList<>(pageCount);
+            CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < pageCount; i++) {
+                int pageIndex = i;
+                CompletableFuture<?> slot = i >= renderedAhead
+                        ? pages.get(i - renderedAhead)
+                        : CompletableFuture.completedFuture(null);
+                CompletableFuture<BufferedImage> image = previous.thenCombineAsync(slot, (a, b) -> {
+                    try {
+                        return renderer.renderImageWithDPI(pageIndex, PDF_RENDER_DPI, ImageType.GRAY);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, renderExecutor);
+                pages.add(image.thenCompose(pageOcr));
+                previous = image;
+            }
+            previous.whenCompleteAsync((image, error) -> closeQuietly(document), renderExecutor);
+
+            return CompletableFuture.allOf(pages.toArray(CompletableFuture[]::new)).thenApply(done -> {
+                StringBuilder text = new StringBuilder();
+                for (CompletableFuture<String> page : pages) {
+                    String pageText = page.join();
+                    if (pageText != null && !pageText.isBlank()) {
+                        text.append(pageText.strip()).append("\n\n");
+                    }
+                }
+                return requireText(text.toString());
+            });
+        });
+    }
 
-        // Step 2: AI — interpret the extracted text using Groq + Llama
-        return interpretTextWithAI(extractedText);
+    public String ocrPage(BufferedImage page) {
+        return ocrEnginePool.doOcr(page);
     }
 
-    private String extractTextFromImage(MultipartFile file) throws Exception {
-        Tesseract tesseract = new Tesseract();
-        tesseract.setLanguage("spa");
+    /**
+     * Decodes the uploaded image subsampled down to the OCR resolution, then applies
+     * its EXIF orientation and converts it for OCR.
+     */
+    public BufferedImage decode(byte[] imageBytes) throws Exception {
+        return decode(imageBytes, null);
+    }
 
-        // Try common tessdata paths
-        String[] tessdataPaths = {
-                "/usr/share/tesseract-ocr/5/tessdata",
-                "/usr/share/tesseract-ocr/4.00/tessdata",
-                "/usr/share/tessdata",
-                "/usr/local/share/tessdata"
-        };
+    // A known orientation skips the EXIF lookup
+    BufferedImage decode(byte[] imageBytes, Integer knownOrientation) throws Exception {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = iis != null ? ImageIO.getImageReaders(iis) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new InvoiceScanRejectedException("No se pudo leer la imagen. Formato no soportado.");
+            }
 
-        String validPath = null;
-        for (String path : tessdataPaths) {
-            java.io.File dir = new java.io.File(path);
-            if (dir.exists() && dir.isDirectory()) {
-                validPath = path;
-                break;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, false);
+                // Skipping pixels while decoding avoids ever holding the full-size photo
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, (int) Math.ceil(longSide / (double) maxImageDimension));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+
+                // Fix EXIF orientation (mobile phones rotate via metadata, not pixels)
+                int orientation = knownOrientation != null ? knownOrientation : 1;
+                if (knownOrientation == null) {
+                    try {
+                        IIOMetadata metadata = reader.getImageMetadata(0);
+                        if (metadata != null) {
+                            orientation = getExifOrientation(metadata);
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Could not read EXIF orientation: " + e.getMessage());
+                    }
+                }
+                return preprocessor.preprocess(image, orientation);
+            } finally {
+                reader.dispose();
             }
         }
+    }
 
-        if (validPath != null) {
-            tesseract.setDatapath(validPath);
+    public String extractText(BufferedImage image) {
+        return requireText(ocrEnginePool.doOcr(image));
+    }
+
+    private String requireText(String extractedText) {
+        if (extractedText == null || extractedText.isBlank()) {
+            throw new InvoiceScanRejectedException(
+                    "No se pudo extraer texto de la imagen. Asegurate de que la foto sea clara.");
         }
+        return extractedText;
+    }
 
+    private static void closeQuietly(PDDocument document) {
         try {
-            byte[] imageBytes = file.getBytes();
-            BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
-            if (image == null) {
-                throw new RuntimeException("No se pudo leer la imagen. Formato no soportado.");
-            }
-
-            // Fix EXIF orientation (mobile phones rotate via metadata, not pixels)
-            image = fixExifOrientation(imageBytes, image);
-
-            return tesseract.doOCR(image);
-        } catch (TesseractException e) {
-            throw new RuntimeException("Error en OCR: " + e.getMessage(), e);
+            document.close();
+        } catch (IOException e) {
+            System.err.println("Could not close PDF: " + e.getMessage());
         }
     }
 
-    private BufferedImage fixExifOrientation(byte[] imageBytes, BufferedImage image) {
+    // Parsed objects are cached in a temp file rather than on the heap
+    private PDDocument loadPdf(byte[] pdfBytes) throws IOException {
         try {
-            ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes));
-            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
-            if (!readers.hasNext())
-                return image;
-
-            ImageReader reader = readers.next();
-            reader.setInput(iis);
-            IIOMetadata metadata = reader.getImageMetadata(0);
-            if (metadata == null)
-                return image;
-
-            // Look for orientation in EXIF metadata
-            int orientation = getExifOrientation(metadata);
-            reader.dispose();
-            iis.close();
-
-            if (orientation <= 1)
-                return image;
-
-            AffineTransform transform = new AffineTransform();
-            int w = image.getWidth();
-            int h = image.getHeight();
-
-            switch (orientation) {
-                case 2: // Flip horizontal
-                    transform.scale(-1.0, 1.0);
-                    transform.translate(-w, 0);
-                    break;
-                case 3: // Rotate 180
-                    transform.translate(w, h);
-                    transform.rotate(Math.PI);
-                    break;
-                case 4: // Flip vertical
-                    transform.scale(1.0, -1.0);
-                    transform.translate(0, -h);
-                    break;
-                case 5: // Transpose
-                    transform.rotate(Math.PI / 2);
-                    transform.scale(1.0, -1.0);
-                    break;
-                case 6: // Rotate 90 CW
-                    transform.translate(h, 0);
-                    transform.rotate(Math.PI / 2);
-                    break;
-                case 7: // Transverse
-                    transform.scale(-1.0, 1.0);
-                    transform.translate(-h, 0);
-                    transform.translate(0, w);
-                    transform.rotate(3 * Math.PI / 2);
-                    break;
-                case 8: // Rotate 90 CCW
-                    transform.translate(0, w);
-                    transform.rotate(3 * Math.PI / 2);
-                    break;
-                default:
-                    return image;
-            }
-
-            boolean swap = orientation >= 5;
-            int newW = swap ? h : w;
-            int newH = swap ? w : h;
-
-            BufferedImage rotated = new BufferedImage(newW, newH,
-                    image.getType() != 0 ? image.getType() : BufferedImage.TYPE_INT_RGB);
-            AffineTransformOp op = new AffineTransformOp(transform, AffineTransformOp.TYPE_BILINEAR);
-            op.filter(image, rotated);
-            return rotated;
-        } catch (Exception e) {
-            System.err.println("Could not fix EXIF orientation: " + e.getMessage());
-            return image; // Return original if EXIF handling fails
+            return Loader.loadPDF(pdfBytes, "", null, null, IOUtils.createTempFileOnlyStreamCache());
+        } catch (InvalidPasswordException e) {
+            throw new InvoiceScanRejectedException("El PDF está protegido con contraseña.");
         }
     }
 
@@ -215,101 +237,4 @@ public class InvoiceScanService {
         }
         return 0;
     }
-
-    private InvoiceScanResponseDTO interpretTextWithAI(String ocrText) throws Exception {
-        String prompt = """
-                You are an invoice parser for an agricultural expense tracking app in Argentina.
-                You will receive raw text extracted via OCR from an invoice or receipt.
-                The text may contain errors or formatting issues from OCR.
-
-                Analyze the text and extract the following information.
-                Return ONLY a valid JSON object (no markdown, no explanation):
-                {
-                  "name": "short description of the expense (in Spanish, max 50 chars)",
-                  "cost": numeric total amount (number only, no currency symbols),
-                  "currency": "USD" or "ARS" (if it mentions pesos, $, or AR$ assume ARS, if USD/dollars use USD),
-                  "date": "YYYY-MM-DD" (date from the invoice, or null if not found),
-                  "note": "provider name, invoice number, and other relevant details (in Spanish)"
-                }
-
-                Rules:
-                - "cost" MUST be a number, not a string
-                - If a field cannot be determined, set it to null
-                - Prefer the TOTAL amount over subtotals
-                - If the text is unreadable or not an invoice, return all fields as null with note explaining why
-                """;
-
-        Map<String, Object> requestBody = Map.of(
-                "model", "llama-3.3-70b-versatile",
-                "messages", List.of(
-                        Map.of("role", "system", "content", prompt),
-                        Map.of("role", "user", "content", "Here is the OCR text from the invoice:\n\n" + ocrText)),
-                "temperature", 0.1,
-                "max_tokens", 500);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(groqApiKey);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-        ResponseEntity<String> response = restTemplate.exchange(
-                GROQ_API_URL, HttpMethod.POST, entity, String.class);
-
-        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-            throw new RuntimeException("Groq API returned error: " + response.getStatusCode());
-        }
-
-        return parseGroqResponse(response.getBody());
-    }
-
-    private InvoiceScanResponseDTO parseGroqResponse(String responseBody) throws Exception {
-        JsonNode root = objectMapper.readTree(responseBody);
-
-        // Groq uses OpenAI-compatible format: choices[0].message.content
-        JsonNode choices = root.path("choices");
-        if (choices.isEmpty()) {
-            throw new RuntimeException("No response from Groq AI");
-        }
-
-        String textContent = choices.get(0)
-                .path("message")
-                .path("content")
-                .asText();
-
-        // Clean the response: remove markdown code blocks if present
-        textContent = textContent.trim();
-        if (textContent.startsWith("```json")) {
-            textContent = textContent.substring(7);
-        } else if (textContent.startsWith("```")) {
-            textContent = textContent.substring(3);
-        }
-        if (textContent.endsWith("```")) {
-            textContent = textContent.substring(0, textContent.length() - 3);
-        }
-        textContent = textContent.trim();
-
-        // Parse the JSON
-        JsonNode parsed = objectMapper.readTree(textContent);
-
-        InvoiceScanResponseDTO dto = new InvoiceScanResponseDTO();
-
-        if (parsed.has("name") && !parsed.get("name").isNull()) {
-            dto.setName(parsed.get("name").asText());
-        }
-        if (parsed.has("cost") && !parsed.get("cost").isNull()) {
-            dto.setCost(new BigDecimal(parsed.get("cost").asText()));
-        }
-        if (parsed.has("currency") && !parsed.get("currency").isNull()) {
-            dto.setCurrency(parsed.get("currency").asText());
-        }
-        if (parsed.has("date") && !parsed.get("date").isNull()) {
-            dto.setDate(parsed.get("date").asText());
-        }
-        if (parsed.has("note") && !parsed.get("note").isNull()) {
-            dto.setNote(parsed.get("note").asText());
-        }
-
-        return dto;
-    }
 }
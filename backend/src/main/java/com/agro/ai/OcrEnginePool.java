@@ -0,0 +1,187 @@
+package com.agro.ai;
+
+import com.sun.jna.Pointer;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.ITessAPI.TessBaseAPI;
+import net.sourceforge.tess4j.TessAPI1;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed set of Tesseract engines shared by all scans. Each engine keeps a native
+ * TessBaseAPI handle with the language data loaded, initialized on its first scan
+ * and ended on shutdown, so the traineddata is not reloaded per scan. An engine is
+ * used by one thread at a time; callers beyond the pool wait in a bounded queue and
+ * are turned away once it is full or the wait times out.
+ */
+@Component
+public class OcrEnginePool {
+
+    private static final String[] TESSDATA_PATHS = {
+            "/usr/share/tesseract-ocr/5/tessdata",
+            "/usr/share/tesseract-ocr/4.00/tessdata",
+            "/usr/share/tessdata",
+            "/usr/local/share/tessdata"
+    };
+
+    private final BlockingQueue<Engine> engines;
+    private final Semaphore admissions;
+    private final long queueTimeoutMs;
+    private final int size;
+    private final int queueCapacity;
+    private final String datapath;
+    private volatile boolean closed;
+
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder ocrNanos = new LongAdder();
+
+    public OcrEnginePool(@Value("${ocr.pool-size:0}") int poolSize,
+            @Value("${ocr.queue-capacity:16}") int queueCapacity,
+            @Value("${ocr.queue-timeout-ms:30000}") long queueTimeoutMs,
+            @Value("${ocr.tessdata-path:}") String tessdataPath) {
+        this.size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.datapath = !tessdataPath.isBlank() ? tessdataPath : findTessdataPath();
+        this.admissions = new Semaphore(size + queueCapacity);
+        this.engines = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            engines.add(new Engine());
+        }
+    }
+
+    public String doOcr(BufferedImage image) {
+        if (!admissions.tryAcquire()) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Demasiados escaneos en curso, intentá de nuevo en unos segundos.");
+        }
+        try {
+            long queuedAt = System.nanoTime();
+            Engine engine = engines.poll(queueTimeoutMs, TimeUnit.MILLISECONDS);
+            if (engine == null) {
+                rejected.increment();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Demasiados escaneos en curso, intentá de nuevo en unos segundos.");
+            }
+            long startedAt = System.nanoTime();
+            waitNanos.add(startedAt - queuedAt);
+            try {
+                return engine.recognize(image);
+            } finally {
+                release(engine);
+                ocrNanos.add(System.nanoTime() - startedAt);
+                scans.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("OCR interrupted", e);
+        } finally {
+            admissions.release();
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public OcrStatsDTO getStats() {
+        long count = scans.sum();
+        int busy = size - engines.size();
+        int admitted = size + queueCapacity - admissions.availablePermits();
+        return new OcrStatsDTO(size, busy, Math.max(0, admitted - busy), count, rejected.sum(),
+                count > 0 ? TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()) / count : 0,
+                count > 0 ? TimeUnit.NANOSECONDS.toMillis(ocrNanos.sum()) / count : 0);
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        Engine engine;
+        while ((engine = engines.poll()) != null) {
+            engine.end();
+        }
+    }
+
+    // Engines still busy at shutdown are ended when they come back
+    private void release(Engine engine) {
+        if (closed) {
+            engine.end();
+        } else {
+            engines.add(engine);
+        }
+    }
+
+    private final class Engine {
+
+        private TessBaseAPI handle;
+
+        String recognize(BufferedImage image) {
+            if (handle == null) {
+                handle = init();
+            }
+            // Same pixel layout tess4j's Tesseract hands to the native API
+            ByteBuffer pixels = ImageIOHelper.getImageByteBuffer(image);
+            int bitsPerPixel = image.getRaster().getDataBuffer() instanceof DataBufferByte
+                    ? image.getColorModel().getPixelSize()
+                    : 8;
+            TessAPI1.TessBaseAPISetImage(handle, pixels, image.getWidth(), image.getHeight(),
+                    bitsPerPixel / 8, (int) Math.ceil(image.getWidth() * bitsPerPixel / 8.0));
+            Pointer text = TessAPI1.TessBaseAPIGetUTF8Text(handle);
+            try {
+                if (text == null) {
+                    throw new RuntimeException("Error en OCR: Tesseract no devolvió texto");
+                }
+                return text.getString(0, "UTF-8");
+            } finally {
+                if (text != null) {
+                    TessAPI1.TessDeleteText(text);
+                }
+                TessAPI1.TessBaseAPIClear(handle);
+            }
+        }
+
+        void end() {
+            if (handle != null) {
+                TessAPI1.TessBaseAPIEnd(handle);
+                TessAPI1.TessBaseAPIDelete(handle);
+                handle = null;
+            }
+        }
+
+        // Loads the language data once; a failure is retried by the next scan on this engine
+        private TessBaseAPI init() {
+            TessBaseAPI api = TessAPI1.TessBaseAPICreate();
+            if (TessAPI1.TessBaseAPIInit3(api, datapath, "spa") != 0) {
+                TessAPI1.TessBaseAPIDelete(api);
+                throw new RuntimeException("Error en OCR: no se pudo inicializar Tesseract con " + datapath);
+            }
+            return api;
+        }
+    }
+
+    private static String findTessdataPath() {
+        for (String path : TESSDATA_PATHS) {
+            File dir = new File(path);
+            if (dir.exists() && dir.isDirectory()) {
+                return path;
+            }
+        }
+        return null;
+    }
+}
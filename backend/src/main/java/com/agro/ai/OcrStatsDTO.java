@@ -0,0 +1,50 @@
+package com.agro.ai;
+
+public class OcrStatsDTO {
+    private final int poolSize;
+    private final int busy;
+    private final int waiting;
+    private final long scans;
+    private final long rejected;
+    private final long avgQueueWaitMs;
+    private final long avgOcrMs;
+
+    public OcrStatsDTO(int poolSize, int busy, int waiting, long scans, long rejected, long avgQueueWaitMs,
+            long avgOcrMs) {
+        this.poolSize = poolSize;
+        this.busy = busy;
+        this.waiting = waiting;
+        this.scans = scans;
+        this.rejected = rejected;
+        this.avgQueueWaitMs = avgQueueWaitMs;
+        this.avgOcrMs = avgOcrMs;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getBusy() {
+        return busy;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getScans() {
+        return scans;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getAvgQueueWaitMs() {
+        return avgQueueWaitMs;
+    }
+
+    public long getAvgOcrMs() {
+        return avgOcrMs;
+    }
+}
@@ -0,0 +1,67 @@
+package com.agro.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page of a list sorted by (date, id) descending.
+ * Sent to clients as an opaque token. Lists sorted by id alone use the id-only form.
+ */
+public class KeysetCursor {
+
+    private final LocalDate date;
+    private final Long id;
+
+    public KeysetCursor(LocalDate date, Long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new KeysetCursor(LocalDate.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public static Long decodeId(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public static String encodeId(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,25 @@
+package com.agro.common;
+
+import java.util.List;
+
+public class KeysetPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // Null on the last page
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.agro.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * History written before it became one row per field and day can hold several rows
+ * for the same day, which keeps the unique index from being created. The last row
+ * of each day is kept, as it is the one the charts already showed. This runs
+ * before the web server starts, since the history upsert needs the index.
+ */
+@Component
+public class LivestockHistoryIndexRunner implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LivestockHistoryIndexRunner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.execute("DELETE FROM livestock_history h USING livestock_history newer "
+                + "WHERE newer.field_id = h.field_id AND newer.date = h.date AND newer.id > h.id");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_livestock_history_field_date "
+                + "ON livestock_history (field_id, date)");
+    }
+}
@@ -0,0 +1,35 @@
+package com.agro.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Tables that moved from IDENTITY to sequence ids keep their existing rows, so the
+ * new sequences are moved past the highest id in use before any insert happens.
+ * This runs once the schema is in place but before the web server accepts requests.
+ */
+@Component
+public class SequenceAlignmentRunner implements SmartInitializingSingleton {
+
+    // Sequence name -> table it generates ids for
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "livestock_transactions_seq", "livestock_transactions",
+            "livestock_stock_deltas_seq", "livestock_stock_deltas");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceAlignmentRunner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach((sequence, table) -> jdbcTemplate.execute(String.format(
+                "SELECT setval('%1$s', GREATEST((SELECT COALESCE(MAX(id), 0) FROM %2$s), "
+                        + "(SELECT last_value FROM %1$s)))",
+                sequence, table)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.agro.config;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * User search matches substrings and misspellings of username, name and lastname,
+ * which a btree index cannot serve. These trigram indexes back both the LIKE and
+ * the similarity operator used by the search query. When pg_trgm cannot be
+ * installed, search falls back to plain substring matching.
+ */
+@Component
+public class UserSearchIndexRunner implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean trigramAvailable;
+
+    public UserSearchIndexRunner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        } catch (Exception e) {
+            System.err.println("Could not create the pg_trgm extension: " + e.getMessage());
+        }
+        // The extension may already be installed even when this role cannot create it
+        trigramAvailable = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')", Boolean.class));
+        if (!trigramAvailable) {
+            System.err.println("pg_trgm is not available, user search falls back to substring matching");
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_users_username_trgm "
+                    + "ON users USING gin (lower(username) gin_trgm_ops)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_users_name_trgm "
+                    + "ON users USING gin (lower(name) gin_trgm_ops)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_users_lastname_trgm "
+                    + "ON users USING gin (lower(lastname) gin_trgm_ops)");
+        } catch (Exception e) {
+            System.err.println("Could not create user search indexes: " + e.getMessage());
+        }
+    }
+
+    public boolean isTrigramAvailable() {
+        return trigramAvailable;
+    }
+}
@@ -5,8 +5,10 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,19 +16,34 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final org.springframework.security.core.userdetails.UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    // Users allowed to reach the operational endpoints (imports, internal stats)
+    private final Set<String> adminEmails;
 
     @Autowired
     JwtAuthFilter(JwtService jwtService,
-            org.springframework.security.core.userdetails.UserDetailsService userDetailsService) {
+            org.springframework.security.core.userdetails.UserDetailsService userDetailsService,
+            PrincipalCache principalCache,
+            @Value("${security.admin-emails}") String adminEmails) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.adminEmails = Arrays.stream(adminEmails.split(","))
+                .map(String::trim)
+                .filter(email -> !email.isEmpty())
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
     }
 
     @Override
@@ -53,14 +70,19 @@ class JwtAuthFilter extends OncePerRequestFilter {
         String token = authHeader.substring(headerPrefix.length());
 
         jwtService.extractVerifiedUserDetails(token).ifPresent(jwtInfo -> {
-            // Load the full User entity from DB
-            org.springframework.security.core.userdetails.UserDetails userDetails = userDetailsService
-                    .loadUserByUsername(jwtInfo.username());
+            // Load the full User entity, from DB only when not recently cached
+            org.springframework.security.core.userdetails.UserDetails userDetails = principalCache
+                    .get(jwtInfo.username(), userDetailsService::loadUserByUsername);
+
+            List<GrantedAuthority> authorities = new ArrayList<>(userDetails.getAuthorities());
+            if (adminEmails.contains(userDetails.getUsername().toLowerCase())) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+            }
 
             var authToken = new UsernamePasswordAuthenticationToken(
                     userDetails,
                     null,
-                    userDetails.getAuthorities());
+                    authorities);
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
         });
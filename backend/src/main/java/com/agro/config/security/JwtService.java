@@ -1,6 +1,9 @@
 package com.agro.config.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -11,19 +14,29 @@ import org.springframework.stereotype.Service;
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class JwtService {
 
-    private final String secret;
     private final Long expiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    // Token -> details, for tokens whose signature was already checked; size bounded
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
 
     @Autowired
     public JwtService(
             @Value("${jwt.access.secret}") String secret,
-            @Value("${jwt.access.expiration}") Long expiration) {
-        this.secret = secret;
+            @Value("${jwt.access.expiration}") Long expiration,
+            @Value("${jwt.access.verified-cache-size:10000}") int verifiedCacheSize) {
         this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder().maximumSize(verifiedCacheSize).build();
     }
 
     public String createToken(JwtUserDetails claims) {
@@ -31,20 +44,31 @@ public class JwtService {
                 .subject(claims.username())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
     public Optional<JwtUserDetails> extractVerifiedUserDetails(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                cacheHits.increment();
+                return Optional.of(cached.details());
+            }
+            verifiedTokens.invalidate(token);
+        }
+        cacheMisses.increment();
+
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parser.parseSignedClaims(token).getPayload();
 
             if (claims.getSubject() != null) {
-                return Optional.of(new JwtUserDetails(claims.getSubject()));
+                JwtUserDetails details = new JwtUserDetails(claims.getSubject());
+                // Tokens are always issued with an expiration; one without it is not cached
+                if (claims.getExpiration() != null) {
+                    verifiedTokens.put(token, new VerifiedToken(details, claims.getExpiration().getTime()));
+                }
+                return Optional.of(details);
             }
         } catch (Exception e) {
             // TODO: Tenemos que handlear el error
@@ -52,8 +76,13 @@ public class JwtService {
         return Optional.empty();
     }
 
-    private SecretKey getSigningKey() {
-        byte[] bytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(bytes);
+    public JwtVerificationStats getVerificationStats() {
+        int size = (int) verifiedTokens.estimatedSize();
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return new JwtVerificationStats(size, hits, total - hits, total > 0 ? (double) hits / total : 0);
+    }
+
+    private record VerifiedToken(JwtUserDetails details, long expiresAt) {
     }
 }
@@ -0,0 +1,8 @@
+package com.agro.config.security;
+
+public record JwtVerificationStats(
+                int cachedTokens,
+                long hits,
+                long misses,
+                double hitRate) {
+}
@@ -0,0 +1,65 @@
+package com.agro.config.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Short-lived cache of authenticated principals by email, so the auth filter
+// does not hit the users table on every request
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, UserDetails> principals;
+    // Bumped on every eviction, before the entry is removed
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PrincipalCache(
+            @Value("${jwt.principal-cache.ttl-ms:60000}") long ttlMs,
+            @Value("${jwt.principal-cache.max-size:10000}") int maxSize) {
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        UserDetails cached = principals.getIfPresent(email);
+        if (cached != null) {
+            return cached;
+        }
+        long evictionsBeforeLoad = evictions.get();
+        UserDetails details = loader.apply(email);
+        // A user evicted while this load ran may have been read before the change committed.
+        // The check runs under the entry's lock, so an eviction racing it removes the entry after.
+        principals.asMap().compute(email,
+                (key, current) -> evictions.get() == evictionsBeforeLoad ? details : current);
+        return details;
+    }
+
+    // Evicts now and again after commit, so a request racing the transaction
+    // cannot leave the pre-update user cached
+    public void evict(String email) {
+        remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(email);
+                }
+            });
+        }
+    }
+
+    private void remove(String email) {
+        evictions.incrementAndGet();
+        principals.invalidate(email);
+    }
+}
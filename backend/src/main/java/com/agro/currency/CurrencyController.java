@@ -2,10 +2,15 @@ package com.agro.currency;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/currency")
@@ -14,33 +19,59 @@ public class CurrencyController {
     @Autowired
     private ExchangeRateService exchangeRateService;
 
+    @Autowired
+    private ExchangeRateHistoryService exchangeRateHistoryService;
+
     @GetMapping("/exchange-rate")
     public ResponseEntity<ExchangeRateResponse> getExchangeRate() {
         try {
-            BigDecimal rate = exchangeRateService.getCurrentExchangeRate();
+            ExchangeRateService.Quote quote = exchangeRateService.getCurrentQuote();
             ExchangeRateResponse response = new ExchangeRateResponse(
-                    rate,
+                    quote.getRate(),
                     "ARS",
                     "USD",
-                    LocalDateTime.now());
+                    LocalDateTime.now(),
+                    quote.getFetchedAt(),
+                    quote.isStale());
             return ResponseEntity.ok(response);
         } catch (ExchangeRateException e) {
             return ResponseEntity.status(503).build(); // Service Unavailable
         }
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/exchange-rate/stats")
+    public ResponseEntity<ExchangeRateStatsDTO> getExchangeRateStats() {
+        return ResponseEntity.ok(exchangeRateService.getStats());
+    }
+
+    // Backfills daily rates from a CSV of "date,rate" lines. The rates are shared by every
+    // user, so only admins may replace them.
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/exchange-rates/import", consumes = "multipart/form-data")
+    public ResponseEntity<Map<String, Integer>> importExchangeRates(@RequestParam("file") MultipartFile file)
+            throws IOException {
+        int imported = exchangeRateHistoryService.importCsv(file.getInputStream());
+        return ResponseEntity.ok(Map.of("imported", imported));
+    }
+
     // Response DTO
     public static class ExchangeRateResponse {
         private BigDecimal rate;
         private String currency;
         private String baseCurrency;
         private LocalDateTime timestamp;
+        private Instant fetchedAt;
+        private boolean stale;
 
-        public ExchangeRateResponse(BigDecimal rate, String currency, String baseCurrency, LocalDateTime timestamp) {
+        public ExchangeRateResponse(BigDecimal rate, String currency, String baseCurrency, LocalDateTime timestamp,
+                Instant fetchedAt, boolean stale) {
             this.rate = rate;
             this.currency = currency;
             this.baseCurrency = baseCurrency;
             this.timestamp = timestamp;
+            this.fetchedAt = fetchedAt;
+            this.stale = stale;
         }
 
         public BigDecimal getRate() {
@@ -58,5 +89,14 @@ public class CurrencyController {
         public LocalDateTime getTimestamp() {
             return timestamp;
         }
+
+        public Instant getFetchedAt() {
+            return fetchedAt;
+        }
+
+        // True when the upstream is down and the rate is older than the max stale age
+        public boolean isStale() {
+            return stale;
+        }
     }
 }
@@ -0,0 +1,40 @@
+package com.agro.currency;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Official ARS to USD rate (ARS per 1 USD) in force on a day.
+ */
+@Entity
+@Table(name = "daily_exchange_rates", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_exchange_rates_date", columnNames = { "date" })
+})
+public class DailyExchangeRate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal rate;
+
+    public DailyExchangeRate() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+}
@@ -0,0 +1,19 @@
+package com.agro.currency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface DailyExchangeRateRepository extends JpaRepository<DailyExchangeRate, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_exchange_rates (date, rate) VALUES (:date, :rate) "
+            + "ON CONFLICT (date) DO UPDATE SET rate = EXCLUDED.rate", nativeQuery = true)
+    void upsert(@Param("date") LocalDate date, @Param("rate") BigDecimal rate);
+}
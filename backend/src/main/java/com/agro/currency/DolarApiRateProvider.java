@@ -0,0 +1,70 @@
+package com.agro.currency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+
+@Component
+public class DolarApiRateProvider implements ExchangeRateProvider {
+
+    private final RestTemplate restTemplate;
+    private final String url;
+
+    public DolarApiRateProvider(
+            @Value("${exchange-rate.upstream-url:https://dolarapi.com/v1/dolares/oficial}") String url) {
+        this.restTemplate = new RestTemplate();
+        this.url = url;
+    }
+
+    /**
+     * Uses the "venta" (sell) price, which is more conservative for calculations.
+     */
+    @Override
+    public BigDecimal fetchRate() throws ExchangeRateException {
+        try {
+            DolarApiResponse response = restTemplate.getForObject(url, DolarApiResponse.class);
+
+            if (response == null || response.getVenta() == null) {
+                throw new ExchangeRateException("Invalid response from dolarapi.com");
+            }
+
+            return response.getVenta();
+        } catch (RestClientException e) {
+            throw new ExchangeRateException("Failed to fetch exchange rate from dolarapi.com: " + e.getMessage(), e);
+        }
+    }
+
+    // Inner class for API response mapping
+    public static class DolarApiResponse {
+        private BigDecimal compra;
+        private BigDecimal venta;
+        private String fechaActualizacion;
+
+        public BigDecimal getCompra() {
+            return compra;
+        }
+
+        public void setCompra(BigDecimal compra) {
+            this.compra = compra;
+        }
+
+        public BigDecimal getVenta() {
+            return venta;
+        }
+
+        public void setVenta(BigDecimal venta) {
+            this.venta = venta;
+        }
+
+        public String getFechaActualizacion() {
+            return fechaActualizacion;
+        }
+
+        public void setFechaActualizacion(String fechaActualizacion) {
+            this.fechaActualizacion = fechaActualizacion;
+        }
+    }
+}
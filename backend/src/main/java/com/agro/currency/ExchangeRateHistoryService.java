@@ -0,0 +1,132 @@
+package com.agro.currency;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Daily rates kept in the database and mirrored in memory, so converting a record
+ * with the rate of its own date is a map lookup. Days without a rate (weekends,
+ * holidays) use the last rate before them. The mirror is reloaded periodically to
+ * pick up rates imported through other instances.
+ */
+@Service
+public class ExchangeRateHistoryService {
+
+    private final DailyExchangeRateRepository repository;
+    private final ExchangeRateService exchangeRateService;
+    private final NavigableMap<LocalDate, BigDecimal> rates = new ConcurrentSkipListMap<>();
+
+    public ExchangeRateHistoryService(DailyExchangeRateRepository repository,
+            ExchangeRateService exchangeRateService) {
+        this.repository = repository;
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${exchange-rate.history.reload-interval-ms:300000}",
+            initialDelayString = "${exchange-rate.history.reload-interval-ms:300000}")
+    public void loadRates() {
+        for (DailyExchangeRate rate : repository.findAll()) {
+            rates.put(rate.getDate(), rate.getRate());
+        }
+    }
+
+    /**
+     * Rate in force on the given date. Today and later dates with no recorded rate
+     * fall back to the current rate.
+     *
+     * @throws ExchangeRateException if no rate is known for the date
+     */
+    public BigDecimal getRateOn(LocalDate date) throws ExchangeRateException {
+        Map.Entry<LocalDate, BigDecimal> entry = rates.floorEntry(date);
+        if (entry != null && (entry.getKey().equals(date) || date.isBefore(LocalDate.now()))) {
+            return entry.getValue();
+        }
+        if (!date.isBefore(LocalDate.now())) {
+            return exchangeRateService.getCurrentExchangeRate();
+        }
+        throw new ExchangeRateException("No exchange rate recorded for " + date);
+    }
+
+    // Records today's rate from the in-memory current rate
+    @Scheduled(fixedDelayString = "${exchange-rate.history.record-interval-ms:3600000}",
+            initialDelayString = "${exchange-rate.history.record-initial-delay-ms:60000}")
+    @Transactional
+    public void recordToday() {
+        try {
+            BigDecimal rate = exchangeRateService.getCurrentExchangeRate();
+            LocalDate today = LocalDate.now();
+            if (rate.compareTo(rates.getOrDefault(today, BigDecimal.ZERO)) != 0) {
+                save(Map.of(today, rate));
+            }
+        } catch (ExchangeRateException e) {
+            System.err.println("Failed to record today's exchange rate: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads rates from a CSV of "date,rate" lines (ISO dates, ARS per 1 USD). A header
+     * line is skipped; existing dates are overwritten.
+     *
+     * @return number of rates imported
+     */
+    @Transactional
+    public int importCsv(InputStream input) throws IOException {
+        Map<LocalDate, BigDecimal> parsed = new TreeMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || (lineNumber == 1 && !Character.isDigit(line.charAt(0)))) {
+                    continue;
+                }
+                String[] columns = line.split("[,;]");
+                try {
+                    BigDecimal rate = new BigDecimal(columns[1].trim());
+                    if (rate.signum() <= 0) {
+                        throw new NumberFormatException();
+                    }
+                    parsed.put(LocalDate.parse(columns[0].trim()), rate);
+                } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Invalid exchange rate on line " + lineNumber + ": " + line);
+                }
+            }
+        }
+        save(parsed);
+        return parsed.size();
+    }
+
+    private void save(Map<LocalDate, BigDecimal> newRates) {
+        newRates.forEach(repository::upsert);
+        // The in-memory index only sees committed rates
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rates.putAll(newRates);
+            }
+        });
+    }
+}
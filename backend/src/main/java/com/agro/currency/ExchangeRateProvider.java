@@ -0,0 +1,12 @@
+package com.agro.currency;
+
+import java.math.BigDecimal;
+
+/**
+ * Upstream source of the ARS to USD rate. Replace the bean to point the service at
+ * a stub.
+ */
+public interface ExchangeRateProvider {
+
+    BigDecimal fetchRate() throws ExchangeRateException;
+}
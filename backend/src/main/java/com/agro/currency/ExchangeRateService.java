@@ -1,73 +1,201 @@
 package com.agro.currency;
 
-import org.springframework.cache.annotation.Cacheable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClientException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Keeps the current rate in memory. A scheduled refresh keeps it warm and readers
+ * never wait on the upstream unless nothing has been fetched yet; while a refresh
+ * is running or failing, the last good rate keeps being served. Past the max stale
+ * age a failed refresh still falls back to the last rate, flagged as stale.
+ */
 @Service
 public class ExchangeRateService {
 
-    private final RestTemplate restTemplate;
-    private static final String DOLAR_API_URL = "https://dolarapi.com/v1/dolares/oficial";
+    private final ExchangeRateProvider provider;
+    private final Duration maxAge;
+    private final Duration maxStale;
 
-    public ExchangeRateService() {
-        this.restTemplate = new RestTemplate();
+    private final AtomicReference<RateSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final Object fetchLock = new Object();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "exchange-rate-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expiredHits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public ExchangeRateService(ExchangeRateProvider provider,
+            @Value("${exchange-rate.max-age-ms:3600000}") long maxAgeMs,
+            @Value("${exchange-rate.max-stale-ms:86400000}") long maxStaleMs) {
+        this.provider = provider;
+        this.maxAge = Duration.ofMillis(maxAgeMs);
+        this.maxStale = Duration.ofMillis(maxStaleMs);
     }
 
     /**
-     * Get the current official ARS to USD exchange rate from dolarapi.com
-     * Uses the "venta" (sell) price which is more conservative for calculations
-     * Result is cached for 1 hour to avoid excessive API calls
+     * Get the current official ARS to USD exchange rate.
      *
      * @return Exchange rate (ARS per 1 USD)
-     * @throws ExchangeRateException if API call fails
+     * @throws ExchangeRateException if no rate was ever fetched and the upstream fails
      */
-    @Cacheable(value = "exchangeRates", unless = "#result == null")
     public BigDecimal getCurrentExchangeRate() throws ExchangeRateException {
-        try {
-            DolarApiResponse response = restTemplate.getForObject(DOLAR_API_URL, DolarApiResponse.class);
+        return getCurrentQuote().getRate();
+    }
 
-            if (response == null || response.getVenta() == null) {
-                throw new ExchangeRateException("Invalid response from dolarapi.com");
+    /**
+     * The current rate with the time it was fetched.
+     * A rate older than the max age is still returned, and a refresh is started in
+     * the background. Past the max stale age the upstream is asked synchronously; if
+     * that fails the last rate is returned with {@link Quote#isStale()} set.
+     *
+     * @throws ExchangeRateException if no rate was ever fetched and the upstream fails
+     */
+    public Quote getCurrentQuote() throws ExchangeRateException {
+        RateSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            Duration age = snapshot.age();
+            if (age.compareTo(maxAge) <= 0) {
+                hits.increment();
+                return new Quote(snapshot, false);
+            }
+            if (age.compareTo(maxStale) <= 0) {
+                staleHits.increment();
+                refreshInBackground();
+                return new Quote(snapshot, false);
             }
+        }
 
-            return response.getVenta();
-        } catch (RestClientException e) {
-            throw new ExchangeRateException("Failed to fetch exchange rate from dolarapi.com: " + e.getMessage(), e);
+        misses.increment();
+        synchronized (fetchLock) {
+            // Another caller may have fetched it while this one waited
+            RateSnapshot latest = current.get();
+            if (latest != null && latest.age().compareTo(maxAge) <= 0) {
+                return new Quote(latest, false);
+            }
+            try {
+                return new Quote(refresh(), false);
+            } catch (ExchangeRateException | RuntimeException e) {
+                if (latest == null) {
+                    throw e;
+                }
+                expiredHits.increment();
+                System.err.println("Exchange rate refresh failed, serving the rate fetched at "
+                        + latest.fetchedAt + ": " + e.getMessage());
+                return new Quote(latest, true);
+            }
         }
     }
 
-    // Inner class for API response mapping
-    public static class DolarApiResponse {
-        private BigDecimal compra;
-        private BigDecimal venta;
-        private String fechaActualizacion;
+    @Scheduled(fixedDelayString = "${exchange-rate.refresh-interval-ms:600000}")
+    public void scheduledRefresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (ExchangeRateException e) {
+            System.err.println("Exchange rate refresh failed: " + e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
 
-        public BigDecimal getCompra() {
-            return compra;
+    public ExchangeRateStatsDTO getStats() {
+        RateSnapshot snapshot = current.get();
+        return new ExchangeRateStatsDTO(
+                snapshot != null ? snapshot.rate : null,
+                snapshot != null ? snapshot.fetchedAt : null,
+                snapshot != null ? snapshot.age().toSeconds() : null,
+                hits.sum(), staleHits.sum(), misses.sum(), expiredHits.sum(), refreshes.sum(),
+                refreshFailures.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void refreshInBackground() {
+        if (refreshing.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh();
+                } catch (ExchangeRateException e) {
+                    System.err.println("Exchange rate refresh failed: " + e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    private RateSnapshot refresh() throws ExchangeRateException {
+        refreshes.increment();
+        try {
+            RateSnapshot snapshot = new RateSnapshot(provider.fetchRate(), Instant.now());
+            current.set(snapshot);
+            return snapshot;
+        } catch (ExchangeRateException | RuntimeException e) {
+            refreshFailures.increment();
+            throw e;
         }
+    }
 
-        public void setCompra(BigDecimal compra) {
-            this.compra = compra;
+    public static final class Quote {
+        private final BigDecimal rate;
+        private final Instant fetchedAt;
+        private final boolean stale;
+
+        private Quote(RateSnapshot snapshot, boolean stale) {
+            this.rate = snapshot.rate;
+            this.fetchedAt = snapshot.fetchedAt;
+            this.stale = stale;
         }
 
-        public BigDecimal getVenta() {
-            return venta;
+        public BigDecimal getRate() {
+            return rate;
         }
 
-        public void setVenta(BigDecimal venta) {
-            this.venta = venta;
+        public Instant getFetchedAt() {
+            return fetchedAt;
         }
 
-        public String getFechaActualizacion() {
-            return fechaActualizacion;
+        // Older than the max stale age, served only because the upstream is failing
+        public boolean isStale() {
+            return stale;
+        }
+    }
+
+    private static final class RateSnapshot {
+        private final BigDecimal rate;
+        private final Instant fetchedAt;
+
+        private RateSnapshot(BigDecimal rate, Instant fetchedAt) {
+            this.rate = rate;
+            this.fetchedAt = fetchedAt;
         }
 
-        public void setFechaActualizacion(String fechaActualizacion) {
-            this.fechaActualizacion = fechaActualizacion;
+        private Duration age() {
+            return Duration.between(fetchedAt, Instant.now());
         }
     }
 }
@@ -0,0 +1,65 @@
+package com.agro.currency;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class ExchangeRateStatsDTO {
+    private final BigDecimal rate;
+    private final Instant fetchedAt;
+    private final Long ageSeconds;
+    private final long hits;
+    private final long staleHits;
+    private final long misses;
+    private final long expiredHits;
+    private final long refreshes;
+    private final long refreshFailures;
+
+    public ExchangeRateStatsDTO(BigDecimal rate, Instant fetchedAt, Long ageSeconds, long hits, long staleHits,
+            long misses, long expiredHits, long refreshes, long refreshFailures) {
+        this.rate = rate;
+        this.fetchedAt = fetchedAt;
+        this.ageSeconds = ageSeconds;
+        this.hits = hits;
+        this.staleHits = staleHits;
+        this.misses = misses;
+        this.expiredHits = expiredHits;
+        this.refreshes = refreshes;
+        this.refreshFailures = refreshFailures;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public Long getAgeSeconds() {
+        return ageSeconds;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getExpiredHits() {
+        return expiredHits;
+    }
+
+    public long getRefreshes() {
+        return refreshes;
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures;
+    }
+}
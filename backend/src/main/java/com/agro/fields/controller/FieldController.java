@@ -2,14 +2,17 @@ package com.agro.fields.controller;
 
 import com.agro.fields.dto.FieldCreateDTO;
 import com.agro.fields.dto.FieldResponseDTO;
+import com.agro.fields.model.LivestockHistoryBucket;
 import com.agro.fields.service.FieldService;
 import com.agro.user.User;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -76,7 +79,10 @@ public class FieldController {
 
     @GetMapping("/history")
     public ResponseEntity<List<com.agro.fields.dto.LivestockHistoryDTO>> getGlobalLivestockHistory(
-            @AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(fieldService.getGlobalLivestockHistory(user.getId()));
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") LivestockHistoryBucket bucket) {
+        return ResponseEntity.ok(fieldService.getGlobalLivestockHistory(user.getId(), from, to, bucket));
     }
 }
@@ -1,23 +1,37 @@
 package com.agro.fields.controller;
 
+import com.agro.common.KeysetPage;
 import com.agro.fields.dto.LivestockExpenseCreateDTO;
+import com.agro.fields.dto.LivestockExpenseFilter;
 import com.agro.fields.dto.LivestockExpenseResponseDTO;
 import com.agro.fields.service.LivestockExpenseService;
 import com.agro.user.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/livestock")
 public class LivestockExpenseController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final LivestockExpenseService expenseService;
+    private final ObjectMapper objectMapper;
 
-    public LivestockExpenseController(LivestockExpenseService expenseService) {
+    public LivestockExpenseController(LivestockExpenseService expenseService, ObjectMapper objectMapper) {
         this.expenseService = expenseService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/expense")
@@ -29,8 +43,40 @@ public class LivestockExpenseController {
 
     @GetMapping("/expenses")
     public ResponseEntity<List<LivestockExpenseResponseDTO>> getExpenses(
-            @AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(expenseService.getExpenses(user.getId()));
+            @AuthenticationPrincipal User user,
+            LivestockExpenseFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        KeysetPage<LivestockExpenseResponseDTO> page = expenseService.getExpenses(user.getId(), filter, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    // One JSON object per line, written while the rows are read
+    @GetMapping(value = "/expenses/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamExpenses(
+            @AuthenticationPrincipal User user,
+            LivestockExpenseFilter filter) {
+        Long userId = user.getId();
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                expenseService.streamExpenses(userId, filter, dto -> {
+                    try {
+                        writer.write(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PutMapping("/expense/{id}")
@@ -1,23 +1,44 @@
 package com.agro.fields.controller;
 
+import com.agro.common.KeysetPage;
+import com.agro.fields.dto.LivestockBatchResultDTO;
 import com.agro.fields.dto.LivestockTransactionCreateDTO;
+import com.agro.fields.dto.LivestockTransactionFilter;
 import com.agro.fields.dto.LivestockTransactionResponseDTO;
 import com.agro.fields.service.LivestockTransactionService;
 import com.agro.user.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/livestock")
 public class LivestockTransactionController {
 
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final LivestockTransactionService transactionService;
+    private final ObjectMapper objectMapper;
 
-    public LivestockTransactionController(LivestockTransactionService transactionService) {
+    public LivestockTransactionController(LivestockTransactionService transactionService, ObjectMapper objectMapper) {
         this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/transaction")
@@ -27,10 +48,58 @@ public class LivestockTransactionController {
         return ResponseEntity.ok(transactionService.createTransaction(user.getId(), dto));
     }
 
+    // A JSON array, read element by element so an oversized batch is refused before it is all in memory
+    @PostMapping(value = "/transactions/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<LivestockBatchResultDTO>> createTransactions(
+            @AuthenticationPrincipal User user,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(transactionService.createTransactions(user.getId(),
+                readBatch(request.getInputStream())));
+    }
+
+    // One JSON object per line, parsed as it streams in
+    @PostMapping(value = "/transactions/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<LivestockBatchResultDTO>> createTransactionsFromNdjson(
+            @AuthenticationPrincipal User user,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(transactionService.createTransactions(user.getId(),
+                readBatch(request.getInputStream())));
+    }
+
     @GetMapping("/transactions")
     public ResponseEntity<List<LivestockTransactionResponseDTO>> getTransactions(
-            @AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(transactionService.getTransactions(user.getId()));
+            @AuthenticationPrincipal User user,
+            LivestockTransactionFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        checkPageSize(limit);
+        KeysetPage<LivestockTransactionResponseDTO> page = transactionService.getTransactions(user.getId(), filter,
+                cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    // One JSON object per line, written while the rows are read
+    @GetMapping(value = "/transactions/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactions(
+            @AuthenticationPrincipal User user,
+            LivestockTransactionFilter filter) {
+        Long userId = user.getId();
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                transactionService.streamTransactions(userId, filter, dto -> {
+                    try {
+                        writer.write(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PutMapping("/transaction/{id}")
@@ -48,4 +117,35 @@ public class LivestockTransactionController {
         transactionService.deleteTransaction(id, user.getId());
         return ResponseEntity.noContent().build();
     }
+
+    private void checkPageSize(Integer limit) {
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    // Reads a JSON array or a sequence of objects, failing as soon as the batch grows too large
+    private List<LivestockTransactionCreateDTO> readBatch(InputStream input) throws IOException {
+        List<LivestockTransactionCreateDTO> dtos = new ArrayList<>();
+        try (MappingIterator<LivestockTransactionCreateDTO> rows = objectMapper
+                .readerFor(LivestockTransactionCreateDTO.class)
+                .readValues(input)) {
+            while (rows.hasNextValue()) {
+                dtos.add(rows.nextValue());
+                checkBatchSize(dtos.size());
+            }
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid transaction on row " + (dtos.size() + 1) + ": " + e.getOriginalMessage());
+        }
+        return dtos;
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "A batch can hold at most " + MAX_BATCH_SIZE + " transactions");
+        }
+    }
 }
@@ -1,18 +1,23 @@
 package com.agro.fields.controller;
 
+import com.agro.fields.dto.RainfallPeriod;
 import com.agro.fields.dto.RainfallRecordCreateDTO;
 import com.agro.fields.dto.RainfallRecordResponseDTO;
+import com.agro.fields.dto.RainfallTotalDTO;
+import com.agro.fields.dto.RainfallYearOverYearDTO;
 import com.agro.fields.service.RainfallRecordService;
 import com.agro.user.User;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
-@RequestMapping("/api/v1/fields/{fieldId}/rainfall")
+@RequestMapping("/api/v1")
 @SecurityRequirement(name = "bearer-key")
 public class RainfallRecordController {
 
@@ -22,7 +27,7 @@ public class RainfallRecordController {
         this.rainfallService = rainfallService;
     }
 
-    @PostMapping
+    @PostMapping("/fields/{fieldId}/rainfall")
     public ResponseEntity<RainfallRecordResponseDTO> createRecord(
             @AuthenticationPrincipal User user,
             @PathVariable Long fieldId,
@@ -30,14 +35,14 @@ public class RainfallRecordController {
         return ResponseEntity.ok(rainfallService.createRecord(user.getId(), fieldId, dto));
     }
 
-    @GetMapping
+    @GetMapping("/fields/{fieldId}/rainfall")
     public ResponseEntity<List<RainfallRecordResponseDTO>> getRecords(
             @AuthenticationPrincipal User user,
             @PathVariable Long fieldId) {
         return ResponseEntity.ok(rainfallService.getRecordsByField(user.getId(), fieldId));
     }
 
-    @DeleteMapping("/{recordId}")
+    @DeleteMapping("/fields/{fieldId}/rainfall/{recordId}")
     public ResponseEntity<Void> deleteRecord(
             @AuthenticationPrincipal User user,
             @PathVariable Long fieldId,
@@ -45,4 +50,34 @@ public class RainfallRecordController {
         rainfallService.deleteRecord(user.getId(), recordId);
         return ResponseEntity.noContent().build();
     }
+
+    // Aggregates of one field; the same ones without the field prefix cover all the user's fields
+
+    @GetMapping({ "/fields/{fieldId}/rainfall/totals", "/rainfall/totals" })
+    public ResponseEntity<List<RainfallTotalDTO>> getTotals(
+            @AuthenticationPrincipal User user,
+            @PathVariable(required = false) Long fieldId,
+            @RequestParam(defaultValue = "MONTH") RainfallPeriod period,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        return ResponseEntity.ok(rainfallService.getTotals(user.getId(), fieldId, period, from, to));
+    }
+
+    @GetMapping({ "/fields/{fieldId}/rainfall/rolling", "/rainfall/rolling" })
+    public ResponseEntity<List<RainfallTotalDTO>> getRollingTotals(
+            @AuthenticationPrincipal User user,
+            @PathVariable(required = false) Long fieldId,
+            @RequestParam(defaultValue = "3") int months,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        return ResponseEntity.ok(rainfallService.getRollingTotals(user.getId(), fieldId, months, from, to));
+    }
+
+    @GetMapping({ "/fields/{fieldId}/rainfall/year-over-year", "/rainfall/year-over-year" })
+    public ResponseEntity<List<RainfallYearOverYearDTO>> getYearOverYear(
+            @AuthenticationPrincipal User user,
+            @PathVariable(required = false) Long fieldId,
+            @RequestParam(required = false) Integer year) {
+        return ResponseEntity.ok(rainfallService.getYearOverYear(user.getId(), fieldId, year));
+    }
 }
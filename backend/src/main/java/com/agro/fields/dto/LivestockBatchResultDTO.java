@@ -0,0 +1,39 @@
+package com.agro.fields.dto;
+
+public class LivestockBatchResultDTO {
+    private int index;
+    private String status;
+    private Long transactionId;
+    private String error;
+
+    public LivestockBatchResultDTO(int index, String status, Long transactionId, String error) {
+        this.index = index;
+        this.status = status;
+        this.transactionId = transactionId;
+        this.error = error;
+    }
+
+    public static LivestockBatchResultDTO created(int index, Long transactionId) {
+        return new LivestockBatchResultDTO(index, "CREATED", transactionId, null);
+    }
+
+    public static LivestockBatchResultDTO rejected(int index, String error) {
+        return new LivestockBatchResultDTO(index, "REJECTED", null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,64 @@
+package com.agro.fields.dto;
+
+import com.agro.fields.model.LivestockActionType;
+import com.agro.fields.model.LivestockCategory;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Optional query parameters of the transaction listings; null means no filter
+public class LivestockTransactionFilter {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    // Matches either side of the transaction
+    private Long fieldId;
+
+    private LivestockCategory category;
+
+    private LivestockActionType actionType;
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public Long getFieldId() {
+        return fieldId;
+    }
+
+    public void setFieldId(Long fieldId) {
+        this.fieldId = fieldId;
+    }
+
+    public LivestockCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(LivestockCategory category) {
+        this.category = category;
+    }
+
+    public LivestockActionType getActionType() {
+        return actionType;
+    }
+
+    public void setActionType(LivestockActionType actionType) {
+        this.actionType = actionType;
+    }
+}
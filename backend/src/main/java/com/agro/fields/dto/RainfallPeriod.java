@@ -0,0 +1,6 @@
+package com.agro.fields.dto;
+
+public enum RainfallPeriod {
+    MONTH,
+    YEAR
+}
@@ -0,0 +1,44 @@
+package com.agro.fields.dto;
+
+import java.time.LocalDate;
+
+public class RainfallTotalDTO {
+
+    // First day of the month or year the total covers
+    private LocalDate periodStart;
+    private Double totalMm;
+    private Long recordCount;
+
+    public RainfallTotalDTO() {
+    }
+
+    public RainfallTotalDTO(LocalDate periodStart, Double totalMm, Long recordCount) {
+        this.periodStart = periodStart;
+        this.totalMm = totalMm;
+        this.recordCount = recordCount;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public Double getTotalMm() {
+        return totalMm;
+    }
+
+    public void setTotalMm(Double totalMm) {
+        this.totalMm = totalMm;
+    }
+
+    public Long getRecordCount() {
+        return recordCount;
+    }
+
+    public void setRecordCount(Long recordCount) {
+        this.recordCount = recordCount;
+    }
+}
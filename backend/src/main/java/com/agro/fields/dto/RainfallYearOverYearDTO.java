@@ -0,0 +1,41 @@
+package com.agro.fields.dto;
+
+public class RainfallYearOverYearDTO {
+
+    private Integer month;
+    private Double totalMm;
+    private Double previousYearMm;
+
+    public RainfallYearOverYearDTO() {
+    }
+
+    public RainfallYearOverYearDTO(Integer month, Double totalMm, Double previousYearMm) {
+        this.month = month;
+        this.totalMm = totalMm;
+        this.previousYearMm = previousYearMm;
+    }
+
+    public Integer getMonth() {
+        return month;
+    }
+
+    public void setMonth(Integer month) {
+        this.month = month;
+    }
+
+    public Double getTotalMm() {
+        return totalMm;
+    }
+
+    public void setTotalMm(Double totalMm) {
+        this.totalMm = totalMm;
+    }
+
+    public Double getPreviousYearMm() {
+        return previousYearMm;
+    }
+
+    public void setPreviousYearMm(Double previousYearMm) {
+        this.previousYearMm = previousYearMm;
+    }
+}
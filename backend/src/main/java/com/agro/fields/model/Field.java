@@ -31,7 +31,7 @@ public class Field {
     @Column
     private Double longitude;
 
-    // Livestock counters
+    // Opening livestock stock; transactions are recorded in the stock ledger
     @Column(columnDefinition = "integer default 0")
     private Integer cows = 0;
     @Column(columnDefinition = "integer default 0")
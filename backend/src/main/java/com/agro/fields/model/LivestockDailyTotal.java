@@ -0,0 +1,83 @@
+package com.agro.fields.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Head count of all the fields of a user at the end of a day, maintained
+ * incrementally every time a field's history is recorded.
+ */
+@Entity
+@Table(name = "livestock_daily_totals", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_livestock_daily_totals_user_date", columnNames = { "user_id", "date" })
+})
+public class LivestockDailyTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(columnDefinition = "integer default 0")
+    private Integer cows = 0;
+    @Column(columnDefinition = "integer default 0")
+    private Integer bulls = 0;
+    @Column(columnDefinition = "integer default 0")
+    private Integer steers = 0;
+    @Column(columnDefinition = "integer default 0")
+    private Integer youngSteers = 0;
+    @Column(columnDefinition = "integer default 0")
+    private Integer heifers = 0;
+    @Column(columnDefinition = "integer default 0")
+    private Integer maleCalves = 0;
+    @Column(columnDefinition = "integer default 0")
+    private Integer femaleCalves = 0;
+
+    public LivestockDailyTotal() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Integer getCows() {
+        return cows;
+    }
+
+    public Integer getBulls() {
+        return bulls;
+    }
+
+    public Integer getSteers() {
+        return steers;
+    }
+
+    public Integer getYoungSteers() {
+        return youngSteers;
+    }
+
+    public Integer getHeifers() {
+        return heifers;
+    }
+
+    public Integer getMaleCalves() {
+        return maleCalves;
+    }
+
+    public Integer getFemaleCalves() {
+        return femaleCalves;
+    }
+}
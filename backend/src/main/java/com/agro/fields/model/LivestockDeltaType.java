@@ -0,0 +1,7 @@
+package com.agro.fields.model;
+
+public enum LivestockDeltaType {
+    EVENT,
+    REVERSAL,
+    SNAPSHOT
+}
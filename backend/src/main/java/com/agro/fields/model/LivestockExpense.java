@@ -6,7 +6,10 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "livestock_expenses")
+@Table(name = "livestock_expenses", indexes = {
+        @Index(name = "idx_livestock_expense_user_date_id", columnList = "user_id, date, id"),
+        @Index(name = "idx_livestock_expense_field_date", columnList = "field_id, date")
+})
 public class LivestockExpense {
 
     @Id
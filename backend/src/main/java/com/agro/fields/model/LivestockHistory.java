@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
+// The (field_id, date) unique index is created by LivestockHistoryIndexRunner once
+// legacy duplicates are gone
 @Table(name = "livestock_history")
 public class LivestockHistory {
 
@@ -0,0 +1,7 @@
+package com.agro.fields.model;
+
+public enum LivestockHistoryBucket {
+    DAY,
+    WEEK,
+    MONTH
+}
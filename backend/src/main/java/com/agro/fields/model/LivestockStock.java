@@ -0,0 +1,68 @@
+package com.agro.fields.model;
+
+/**
+ * Head count per category for a single field, as projected from the stock ledger.
+ */
+public class LivestockStock {
+
+    private final int[] counts = new int[LivestockCategory.values().length];
+
+    public static LivestockStock empty() {
+        return new LivestockStock();
+    }
+
+    /**
+     * Opening stock of a field: the counters recorded when it was created.
+     */
+    public static LivestockStock of(Field field) {
+        LivestockStock stock = new LivestockStock();
+        stock.add(LivestockCategory.COWS, valueOf(field.getCows()));
+        stock.add(LivestockCategory.BULLS, valueOf(field.getBulls()));
+        stock.add(LivestockCategory.STEERS, valueOf(field.getSteers()));
+        stock.add(LivestockCategory.YOUNG_STEERS, valueOf(field.getYoungSteers()));
+        stock.add(LivestockCategory.HEIFERS, valueOf(field.getHeifers()));
+        stock.add(LivestockCategory.MALE_CALVES, valueOf(field.getMaleCalves()));
+        stock.add(LivestockCategory.FEMALE_CALVES, valueOf(field.getFemaleCalves()));
+        return stock;
+    }
+
+    public int get(LivestockCategory category) {
+        return counts[category.ordinal()];
+    }
+
+    public void add(LivestockCategory category, int amount) {
+        counts[category.ordinal()] += amount;
+    }
+
+    public int getCows() {
+        return get(LivestockCategory.COWS);
+    }
+
+    public int getBulls() {
+        return get(LivestockCategory.BULLS);
+    }
+
+    public int getSteers() {
+        return get(LivestockCategory.STEERS);
+    }
+
+    public int getYoungSteers() {
+        return get(LivestockCategory.YOUNG_STEERS);
+    }
+
+    public int getHeifers() {
+        return get(LivestockCategory.HEIFERS);
+    }
+
+    public int getMaleCalves() {
+        return get(LivestockCategory.MALE_CALVES);
+    }
+
+    public int getFemaleCalves() {
+        return get(LivestockCategory.FEMALE_CALVES);
+    }
+
+    private static int valueOf(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,93 @@
+package com.agro.fields.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable entry of the per-field stock ledger. Transactions append EVENT rows,
+ * reverting a transaction appends REVERSAL rows, and compaction folds the live
+ * rows of a field into SNAPSHOT rows.
+ */
+@Entity
+@Table(name = "livestock_stock_deltas", indexes = {
+        @Index(name = "idx_stock_delta_field_compacted", columnList = "field_id, compacted")
+})
+public class LivestockStockDelta {
+
+    // Sequence ids (allocated 50 at a time) let Hibernate batch the inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livestock_stock_deltas_seq")
+    @SequenceGenerator(name = "livestock_stock_deltas_seq", sequenceName = "livestock_stock_deltas_seq",
+            allocationSize = 50)
+    private Long id;
+
+    @Column(name = "field_id", nullable = false)
+    private Long fieldId;
+
+    // Transaction that produced this delta, null for snapshots
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LivestockCategory category;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LivestockDeltaType type;
+
+    // Set once the row has been folded into a newer snapshot
+    @Column(nullable = false)
+    private Boolean compacted = false;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public LivestockStockDelta() {
+    }
+
+    public LivestockStockDelta(Long fieldId, Long transactionId, LivestockCategory category, Integer delta,
+            LivestockDeltaType type) {
+        this.fieldId = fieldId;
+        this.transactionId = transactionId;
+        this.category = category;
+        this.delta = delta;
+        this.type = type;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getFieldId() {
+        return fieldId;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public LivestockCategory getCategory() {
+        return category;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public LivestockDeltaType getType() {
+        return type;
+    }
+
+    public Boolean getCompacted() {
+        return compacted;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
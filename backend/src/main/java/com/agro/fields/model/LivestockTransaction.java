@@ -6,11 +6,18 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "livestock_transactions")
+@Table(name = "livestock_transactions", indexes = {
+        @Index(name = "idx_livestock_tx_user_date_id", columnList = "user_id, date, id"),
+        @Index(name = "idx_livestock_tx_source_date", columnList = "source_field_id, date"),
+        @Index(name = "idx_livestock_tx_target_date", columnList = "target_field_id, date")
+})
 public class LivestockTransaction {
 
+    // Sequence ids (allocated 50 at a time) let Hibernate batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livestock_transactions_seq")
+    @SequenceGenerator(name = "livestock_transactions_seq", sequenceName = "livestock_transactions_seq",
+            allocationSize = 50)
     private Long id;
 
     // The user who performed the action
@@ -0,0 +1,55 @@
+package com.agro.fields.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Rainfall of a field in a month, maintained incrementally every time a record is
+ * created or deleted. Months without records have no row.
+ */
+@Entity
+@Table(name = "rainfall_monthly_totals", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rainfall_monthly_totals_field_month", columnNames = { "field_id", "month_start" })
+})
+public class RainfallMonthlyTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "field_id", nullable = false)
+    private Long fieldId;
+
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "total_mm", nullable = false)
+    private Double totalMm = 0.0;
+
+    @Column(name = "record_count", nullable = false)
+    private Integer recordCount = 0;
+
+    public RainfallMonthlyTotal() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getFieldId() {
+        return fieldId;
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public Double getTotalMm() {
+        return totalMm;
+    }
+
+    public Integer getRecordCount() {
+        return recordCount;
+    }
+}
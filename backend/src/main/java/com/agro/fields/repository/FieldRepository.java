@@ -1,12 +1,35 @@
 package com.agro.fields.repository;
 
 import com.agro.fields.model.Field;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FieldRepository extends JpaRepository<Field, Long> {
     List<Field> findByUserId(Long userId);
+
+    List<Field> findByUserIdIn(Collection<Long> userIds);
+
+    @Query("SELECT f.id FROM fields f WHERE f.user.id IN :userIds")
+    List<Long> findIdsByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Rows of [id, name]
+    @Query("SELECT f.id, f.name FROM fields f WHERE f.id IN :ids")
+    List<Object[]> findNamesByIds(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT f FROM fields f WHERE f.id = :id")
+    Optional<Field> lockForShare(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM fields f WHERE f.id = :id")
+    Optional<Field> lockForUpdate(@Param("id") Long id);
 }
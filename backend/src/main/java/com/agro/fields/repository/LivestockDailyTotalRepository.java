@@ -0,0 +1,76 @@
+package com.agro.fields.repository;
+
+import com.agro.fields.model.LivestockDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LivestockDailyTotalRepository extends JpaRepository<LivestockDailyTotal, Long> {
+
+    List<LivestockDailyTotal> findByUserIdOrderByDateAsc(Long userId);
+
+    List<LivestockDailyTotal> findByUserIdAndDateBetweenOrderByDateAsc(Long userId, LocalDate from, LocalDate to);
+
+    List<LivestockDailyTotal> findByUserIdAndDateGreaterThanEqualOrderByDateAsc(Long userId, LocalDate from);
+
+    List<LivestockDailyTotal> findByUserIdAndDateLessThanEqualOrderByDateAsc(Long userId, LocalDate to);
+
+    Optional<LivestockDailyTotal> findFirstByUserIdAndDateLessThanOrderByDateDesc(Long userId, LocalDate date);
+
+    /**
+     * Adds a change to the user's total for a day. The first change of a day starts
+     * from the latest earlier total; later ones (even concurrent) add to that row.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO livestock_daily_totals "
+            + "(user_id, date, cows, bulls, steers, young_steers, heifers, male_calves, female_calves) "
+            + "SELECT :userId, :date, COALESCE(p.cows, 0) + :cows, COALESCE(p.bulls, 0) + :bulls, "
+            + "COALESCE(p.steers, 0) + :steers, COALESCE(p.young_steers, 0) + :youngSteers, "
+            + "COALESCE(p.heifers, 0) + :heifers, COALESCE(p.male_calves, 0) + :maleCalves, "
+            + "COALESCE(p.female_calves, 0) + :femaleCalves "
+            + "FROM (SELECT 1) one LEFT JOIN (SELECT * FROM livestock_daily_totals "
+            + "WHERE user_id = :userId AND date < :date ORDER BY date DESC LIMIT 1) p ON true "
+            + "ON CONFLICT (user_id, date) DO UPDATE SET "
+            + "cows = livestock_daily_totals.cows + :cows, "
+            + "bulls = livestock_daily_totals.bulls + :bulls, "
+            + "steers = livestock_daily_totals.steers + :steers, "
+            + "young_steers = livestock_daily_totals.young_steers + :youngSteers, "
+            + "heifers = livestock_daily_totals.heifers + :heifers, "
+            + "male_calves = livestock_daily_totals.male_calves + :maleCalves, "
+            + "female_calves = livestock_daily_totals.female_calves + :femaleCalves", nativeQuery = true)
+    void addToDay(@Param("userId") Long userId, @Param("date") LocalDate date,
+            @Param("cows") int cows, @Param("bulls") int bulls, @Param("steers") int steers,
+            @Param("youngSteers") int youngSteers, @Param("heifers") int heifers,
+            @Param("maleCalves") int maleCalves, @Param("femaleCalves") int femaleCalves);
+
+    boolean existsByUserId(Long userId);
+
+    @Query(value = "SELECT DISTINCT f.user_id FROM livestock_history lh JOIN fields f ON f.id = lh.field_id "
+            + "WHERE NOT EXISTS (SELECT 1 FROM livestock_daily_totals t WHERE t.user_id = f.user_id)", nativeQuery = true)
+    List<Long> findUserIdsMissingTotals();
+
+    /**
+     * Builds the totals of a user from the recorded history, summing the latest state
+     * of every field on each date where any of them changed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO livestock_daily_totals "
+            + "(user_id, date, cows, bulls, steers, young_steers, heifers, male_calves, female_calves) "
+            + "SELECT :userId, d.date, SUM(h.cows), SUM(h.bulls), SUM(h.steers), SUM(h.young_steers), "
+            + "SUM(h.heifers), SUM(h.male_calves), SUM(h.female_calves) "
+            + "FROM (SELECT DISTINCT lh.date FROM livestock_history lh "
+            + "JOIN fields f ON f.id = lh.field_id WHERE f.user_id = :userId) d "
+            + "JOIN fields f ON f.user_id = :userId "
+            + "JOIN LATERAL (SELECT * FROM livestock_history lh WHERE lh.field_id = f.id AND lh.date <= d.date "
+            + "ORDER BY lh.date DESC, lh.id DESC LIMIT 1) h ON true "
+            + "GROUP BY d.date "
+            + "ON CONFLICT (user_id, date) DO NOTHING", nativeQuery = true)
+    int backfillUser(@Param("userId") Long userId);
+}
@@ -0,0 +1,24 @@
+package com.agro.fields.repository;
+
+import com.agro.fields.model.LivestockExpense;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Filtered listings built with only the filters that are set, so every bound reaches
+ * the (user_id, date) index even under a prepared statement's generic plan.
+ */
+public interface LivestockExpenseRepositoryCustom {
+
+    /**
+     * Rows after the cursor (date, id), newest first; a null cursor starts from the top.
+     */
+    List<LivestockExpense> findPage(Long userId, LocalDate from, LocalDate to, Long fieldId,
+            LocalDate cursorDate, Long cursorId, Pageable pageable);
+
+    // Read through a server-side cursor; must be consumed inside a transaction
+    Stream<LivestockExpense> streamFiltered(Long userId, LocalDate from, LocalDate to, Long fieldId);
+}
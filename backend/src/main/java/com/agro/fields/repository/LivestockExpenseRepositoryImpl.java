@@ -0,0 +1,70 @@
+package com.agro.fields.repository;
+
+import com.agro.fields.model.LivestockExpense;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class LivestockExpenseRepositoryImpl implements LivestockExpenseRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    LivestockExpenseRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<LivestockExpense> findPage(Long userId, LocalDate from, LocalDate to, Long fieldId,
+            LocalDate cursorDate, Long cursorId, Pageable pageable) {
+        TypedQuery<LivestockExpense> query = filtered(userId, from, to, fieldId, cursorDate, cursorId);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<LivestockExpense> streamFiltered(Long userId, LocalDate from, LocalDate to, Long fieldId) {
+        return filtered(userId, from, to, fieldId, null, null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private TypedQuery<LivestockExpense> filtered(Long userId, LocalDate from, LocalDate to, Long fieldId,
+            LocalDate cursorDate, Long cursorId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LivestockExpense> cq = cb.createQuery(LivestockExpense.class);
+        Root<LivestockExpense> e = cq.from(LivestockExpense.class);
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(e.get("user").get("id"), userId));
+        if (from != null) {
+            where.add(cb.greaterThanOrEqualTo(e.get("date"), from));
+        }
+        if (to != null) {
+            where.add(cb.lessThanOrEqualTo(e.get("date"), to));
+        }
+        if (fieldId != null) {
+            where.add(cb.equal(e.get("fieldId"), fieldId));
+        }
+        if (cursorDate != null) {
+            where.add(cb.or(cb.lessThan(e.get("date"), cursorDate),
+                    cb.and(cb.equal(e.get("date"), cursorDate), cb.lessThan(e.get("id"), cursorId))));
+        }
+        cq.select(e).where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(e.get("date")), cb.desc(e.get("id")));
+        return entityManager.createQuery(cq);
+    }
+}
@@ -14,6 +14,29 @@ public interface LivestockHistoryRepository extends JpaRepository<LivestockHisto
 
     Optional<LivestockHistory> findByFieldIdAndDate(Long fieldId, LocalDate date);
 
+    Optional<LivestockHistory> findFirstByFieldIdOrderByDateDescIdDesc(Long fieldId);
+
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query(value = "INSERT INTO livestock_history "
+            + "(field_id, date, cows, bulls, steers, young_steers, heifers, male_calves, female_calves) "
+            + "VALUES (:fieldId, :date, :cows, :bulls, :steers, :youngSteers, :heifers, :maleCalves, :femaleCalves) "
+            + "ON CONFLICT (field_id, date) DO UPDATE SET cows = EXCLUDED.cows, bulls = EXCLUDED.bulls, "
+            + "steers = EXCLUDED.steers, young_steers = EXCLUDED.young_steers, heifers = EXCLUDED.heifers, "
+            + "male_calves = EXCLUDED.male_calves, female_calves = EXCLUDED.female_calves", nativeQuery = true)
+    void upsert(@org.springframework.data.repository.query.Param("fieldId") Long fieldId,
+            @org.springframework.data.repository.query.Param("date") LocalDate date,
+            @org.springframework.data.repository.query.Param("cows") int cows,
+            @org.springframework.data.repository.query.Param("bulls") int bulls,
+            @org.springframework.data.repository.query.Param("steers") int steers,
+            @org.springframework.data.repository.query.Param("youngSteers") int youngSteers,
+            @org.springframework.data.repository.query.Param("heifers") int heifers,
+            @org.springframework.data.repository.query.Param("maleCalves") int maleCalves,
+            @org.springframework.data.repository.query.Param("femaleCalves") int femaleCalves);
+
+    // Held until the end of the transaction; serializes history writers of a field
+    @org.springframework.data.jpa.repository.Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:fieldId)", nativeQuery = true)
+    Integer lockField(@org.springframework.data.repository.query.Param("fieldId") Long fieldId);
+
     @org.springframework.data.jpa.repository.Query("SELECT h FROM LivestockHistory h JOIN h.field f WHERE f.user.id = :userId ORDER BY h.date ASC")
     List<LivestockHistory> findByUserId(@org.springframework.data.repository.query.Param("userId") Long userId);
 }
@@ -0,0 +1,29 @@
+package com.agro.fields.repository;
+
+import com.agro.fields.model.LivestockStockDelta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LivestockStockDeltaRepository extends JpaRepository<LivestockStockDelta, Long> {
+
+    // Rows of [fieldId, category, sum] over the deltas not yet folded into a snapshot
+    @Query("SELECT d.fieldId, d.category, SUM(d.delta) FROM LivestockStockDelta d " +
+            "WHERE d.fieldId IN :fieldIds AND d.compacted = false GROUP BY d.fieldId, d.category")
+    List<Object[]> sumLiveDeltas(@Param("fieldIds") Collection<Long> fieldIds);
+
+    @Query("SELECT d.fieldId FROM LivestockStockDelta d " +
+            "WHERE d.compacted = false AND d.type <> com.agro.fields.model.LivestockDeltaType.SNAPSHOT " +
+            "GROUP BY d.fieldId HAVING COUNT(d) >= :threshold")
+    List<Long> findFieldIdsDueForSnapshot(@Param("threshold") long threshold);
+
+    @Modifying
+    @Query("UPDATE LivestockStockDelta d SET d.compacted = true WHERE d.fieldId = :fieldId AND d.compacted = false")
+    int markCompacted(@Param("fieldId") Long fieldId);
+}
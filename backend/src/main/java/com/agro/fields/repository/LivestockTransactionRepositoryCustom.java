@@ -0,0 +1,28 @@
+package com.agro.fields.repository;
+
+import com.agro.fields.model.LivestockActionType;
+import com.agro.fields.model.LivestockCategory;
+import com.agro.fields.model.LivestockTransaction;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Filtered listings built with only the filters that are set, so every bound reaches
+ * the (user_id, date) index even under a prepared statement's generic plan.
+ */
+public interface LivestockTransactionRepositoryCustom {
+
+    /**
+     * Rows after the cursor (date, id), newest first; a null cursor starts from the top.
+     */
+    List<LivestockTransaction> findPage(Long userId, LocalDate from, LocalDate to, Long fieldId,
+            LivestockCategory category, LivestockActionType actionType, LocalDate cursorDate, Long cursorId,
+            Pageable pageable);
+
+    // Read through a server-side cursor; must be consumed inside a transaction
+    Stream<LivestockTransaction> streamFiltered(Long userId, LocalDate from, LocalDate to, Long fieldId,
+            LivestockCategory category, LivestockActionType actionType);
+}
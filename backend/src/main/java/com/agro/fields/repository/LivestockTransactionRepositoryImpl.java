@@ -0,0 +1,89 @@
+package com.agro.fields.repository;
+
+import com.agro.fields.model.Field;
+import com.agro.fields.model.LivestockActionType;
+import com.agro.fields.model.LivestockCategory;
+import com.agro.fields.model.LivestockTransaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class LivestockTransactionRepositoryImpl implements LivestockTransactionRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    LivestockTransactionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<LivestockTransaction> findPage(Long userId, LocalDate from, LocalDate to, Long fieldId,
+            LivestockCategory category, LivestockActionType actionType, LocalDate cursorDate, Long cursorId,
+            Pageable pageable) {
+        TypedQuery<LivestockTransaction> query = filtered(userId, from, to, fieldId, category, actionType,
+                cursorDate, cursorId);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<LivestockTransaction> streamFiltered(Long userId, LocalDate from, LocalDate to, Long fieldId,
+            LivestockCategory category, LivestockActionType actionType) {
+        return filtered(userId, from, to, fieldId, category, actionType, null, null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypedQuery<LivestockTransaction> filtered(Long userId, LocalDate from, LocalDate to, Long fieldId,
+            LivestockCategory category, LivestockActionType actionType, LocalDate cursorDate, Long cursorId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LivestockTransaction> cq = cb.createQuery(LivestockTransaction.class);
+        Root<LivestockTransaction> t = cq.from(LivestockTransaction.class);
+        Join<LivestockTransaction, Field> source = (Join<LivestockTransaction, Field>) t.fetch("sourceField",
+                JoinType.LEFT);
+        Join<LivestockTransaction, Field> target = (Join<LivestockTransaction, Field>) t.fetch("targetField",
+                JoinType.LEFT);
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(t.get("user").get("id"), userId));
+        if (from != null) {
+            where.add(cb.greaterThanOrEqualTo(t.get("date"), from));
+        }
+        if (to != null) {
+            where.add(cb.lessThanOrEqualTo(t.get("date"), to));
+        }
+        if (fieldId != null) {
+            where.add(cb.or(cb.equal(source.get("id"), fieldId), cb.equal(target.get("id"), fieldId)));
+        }
+        if (category != null) {
+            where.add(cb.equal(t.get("category"), category));
+        }
+        if (actionType != null) {
+            where.add(cb.equal(t.get("actionType"), actionType));
+        }
+        if (cursorDate != null) {
+            where.add(cb.or(cb.lessThan(t.get("date"), cursorDate),
+                    cb.and(cb.equal(t.get("date"), cursorDate), cb.lessThan(t.get("id"), cursorId))));
+        }
+        cq.select(t).where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(t.get("date")), cb.desc(t.get("id")));
+        return entityManager.createQuery(cq);
+    }
+}
@@ -0,0 +1,58 @@
+package com.agro.fields.repository;
+
+import com.agro.fields.dto.RainfallTotalDTO;
+import com.agro.fields.model.RainfallMonthlyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RainfallMonthlyTotalRepository extends JpaRepository<RainfallMonthlyTotal, Long> {
+
+    // Monthly rainfall of the given fields added together, oldest month first
+    @Query("SELECT new com.agro.fields.dto.RainfallTotalDTO(t.monthStart, SUM(t.totalMm), SUM(t.recordCount)) "
+            + "FROM RainfallMonthlyTotal t WHERE t.fieldId IN :fieldIds AND t.monthStart BETWEEN :from AND :to "
+            + "GROUP BY t.monthStart ORDER BY t.monthStart")
+    List<RainfallTotalDTO> sumByMonth(@Param("fieldIds") Collection<Long> fieldIds,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Adds a change to a field's month. Concurrent changes to the same month add to
+     * the same row.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO rainfall_monthly_totals (field_id, month_start, total_mm, record_count) "
+            + "VALUES (:fieldId, :month, :amountMm, :records) "
+            + "ON CONFLICT (field_id, month_start) DO UPDATE SET "
+            + "total_mm = rainfall_monthly_totals.total_mm + :amountMm, "
+            + "record_count = rainfall_monthly_totals.record_count + :records", nativeQuery = true)
+    void addToMonth(@Param("fieldId") Long fieldId, @Param("month") LocalDate month,
+            @Param("amountMm") double amountMm, @Param("records") int records);
+
+    @Modifying
+    @Query(value = "DELETE FROM rainfall_monthly_totals "
+            + "WHERE field_id = :fieldId AND month_start = :month AND record_count <= 0", nativeQuery = true)
+    void deleteIfEmpty(@Param("fieldId") Long fieldId, @Param("month") LocalDate month);
+
+    boolean existsByFieldId(Long fieldId);
+
+    @Query(value = "SELECT DISTINCT r.field_id FROM rainfall_records r "
+            + "WHERE NOT EXISTS (SELECT 1 FROM rainfall_monthly_totals t WHERE t.field_id = r.field_id)",
+            nativeQuery = true)
+    List<Long> findFieldIdsMissingTotals();
+
+    // Builds the totals of a field from its recorded rainfall
+    @Modifying
+    @Query(value = "INSERT INTO rainfall_monthly_totals (field_id, month_start, total_mm, record_count) "
+            + "SELECT :fieldId, CAST(date_trunc('month', r.date) AS date), SUM(r.amount_mm), COUNT(*) "
+            + "FROM rainfall_records r WHERE r.field_id = :fieldId "
+            + "GROUP BY CAST(date_trunc('month', r.date) AS date) "
+            + "ON CONFLICT (field_id, month_start) DO NOTHING", nativeQuery = true)
+    int backfillField(@Param("fieldId") Long fieldId);
+}
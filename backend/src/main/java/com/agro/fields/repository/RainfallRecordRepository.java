@@ -8,5 +8,5 @@ import java.util.List;
 
 @Repository
 public interface RainfallRecordRepository extends JpaRepository<RainfallRecord, Long> {
-    List<RainfallRecord> findByFieldIdAndFieldUserIdOrderByDateDesc(Long fieldId, Long userId);
+    List<RainfallRecord> findByFieldIdOrderByDateDesc(Long fieldId);
 }
@@ -0,0 +1,86 @@
+package com.agro.fields.service;
+
+import com.agro.fields.model.Field;
+import com.agro.partners.repository.PartnerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which fields a user can work with: their own and those of their accepted
+ * partners. The owners each user can reach are cached, so checking a field costs a
+ * set lookup. A partnership change evicts the entry on the node that made it; other
+ * nodes pick it up when the entry expires, so the TTL bounds how long a removed
+ * partner keeps access there.
+ */
+@Service
+public class FieldAccessService {
+
+    private final PartnerRepository partnerRepository;
+    private final long ttlMs;
+    private final ConcurrentHashMap<Long, CachedOwners> accessibleOwners = new ConcurrentHashMap<>();
+
+    public FieldAccessService(PartnerRepository partnerRepository,
+            @Value("${field-access.cache-ttl-ms:30000}") long ttlMs) {
+        this.partnerRepository = partnerRepository;
+        this.ttlMs = ttlMs;
+    }
+
+    public Set<Long> getAccessibleOwnerIds(Long userId) {
+        long now = System.currentTimeMillis();
+        return accessibleOwners.compute(userId, (id, cached) -> {
+            if (cached != null && cached.expiresAt() > now) {
+                return cached;
+            }
+            Set<Long> owners = new HashSet<>(partnerRepository.findAcceptedPartnerIds(id));
+            owners.add(id);
+            return new CachedOwners(Set.copyOf(owners), now + ttlMs);
+        }).owners();
+    }
+
+    public boolean canAccess(Long userId, Field field) {
+        return getAccessibleOwnerIds(userId).contains(field.getUser().getId());
+    }
+
+    public void requireAccess(Long userId, Field field, String message) {
+        if (!canAccess(userId, field)) {
+            throw new RuntimeException(message);
+        }
+    }
+
+    // Evicts now and again after commit, so a lookup racing the transaction
+    // cannot keep the old partner list cached
+    public void evict(Long... userIds) {
+        remove(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userIds);
+                }
+            });
+        }
+    }
+
+    // Keeps users who stopped making requests from holding entries forever
+    @Scheduled(fixedDelayString = "${field-access.cache-ttl-ms:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        accessibleOwners.values().removeIf(cached -> cached.expiresAt() <= now);
+    }
+
+    private void remove(Long... userIds) {
+        for (Long userId : userIds) {
+            accessibleOwners.remove(userId);
+        }
+    }
+
+    private record CachedOwners(Set<Long> owners, long expiresAt) {
+    }
+}
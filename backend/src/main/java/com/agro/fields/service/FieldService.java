@@ -3,15 +3,20 @@ package com.agro.fields.service;
 import com.agro.fields.dto.FieldCreateDTO;
 import com.agro.fields.dto.FieldResponseDTO;
 import com.agro.fields.model.Field;
-import com.agro.fields.model.LivestockHistory;
+import com.agro.fields.model.LivestockDailyTotal;
+import com.agro.fields.model.LivestockHistoryBucket;
+import com.agro.fields.model.LivestockStock;
 import com.agro.fields.repository.FieldRepository;
+import com.agro.fields.repository.LivestockDailyTotalRepository;
 import com.agro.fields.repository.LivestockHistoryRepository;
 import com.agro.user.User;
 import com.agro.user.UserRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,18 +25,29 @@ public class FieldService {
     private final FieldRepository fieldRepository;
     private final UserRepository userRepository;
     private final LivestockHistoryRepository livestockHistoryRepository;
+    private final LivestockDailyTotalRepository dailyTotalRepository;
+    private final LivestockLedgerService ledgerService;
+    private final FieldAccessService fieldAccessService;
 
     public FieldService(FieldRepository fieldRepository, UserRepository userRepository,
-            LivestockHistoryRepository livestockHistoryRepository) {
+            LivestockHistoryRepository livestockHistoryRepository,
+            LivestockDailyTotalRepository dailyTotalRepository, LivestockLedgerService ledgerService,
+            FieldAccessService fieldAccessService) {
         this.fieldRepository = fieldRepository;
         this.userRepository = userRepository;
         this.livestockHistoryRepository = livestockHistoryRepository;
+        this.dailyTotalRepository = dailyTotalRepository;
+        this.ledgerService = ledgerService;
+        this.fieldAccessService = fieldAccessService;
     }
 
     @Transactional(readOnly = true)
     public List<FieldResponseDTO> getFieldsByUserId(Long userId) {
-        return fieldRepository.findByUserId(userId).stream()
-                .map(this::mapToDTO)
+        // Includes the fields shared by accepted partners
+        List<Field> fields = fieldRepository.findByUserIdIn(fieldAccessService.getAccessibleOwnerIds(userId));
+        Map<Long, LivestockStock> stocks = ledgerService.currentStock(fields);
+        return fields.stream()
+                .map(field -> mapToDTO(field, stocks.get(field.getId())))
                 .collect(Collectors.toList());
     }
 
@@ -40,9 +56,7 @@ public class FieldService {
         Field field = fieldRepository.findById(fieldId)
                 .orElseThrow(() -> new RuntimeException("Field not found"));
 
-        if (!field.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Unauthorized access to field");
-        }
+        fieldAccessService.requireAccess(userId, field, "Unauthorized access to field");
 
         return mapToDTO(field);
     }
@@ -160,10 +174,14 @@ public class FieldService {
     }
 
     private FieldResponseDTO mapToDTO(Field field) {
+        return mapToDTO(field, ledgerService.currentStock(field));
+    }
+
+    private FieldResponseDTO mapToDTO(Field field, LivestockStock stock) {
         return new FieldResponseDTO(field.getId(), field.getName(), field.getHectares(), field.getPhoto(),
                 field.getHasAgriculture(), field.getHasLivestock(), field.getLatitude(), field.getLongitude(),
-                field.getCows(), field.getBulls(), field.getSteers(), field.getYoungSteers(), field.getHeifers(),
-                field.getMaleCalves(), field.getFemaleCalves());
+                stock.getCows(), stock.getBulls(), stock.getSteers(), stock.getYoungSteers(), stock.getHeifers(),
+                stock.getMaleCalves(), stock.getFemaleCalves());
     }
 
     @Transactional(readOnly = true)
@@ -171,9 +189,7 @@ public class FieldService {
         Field field = fieldRepository.findById(fieldId)
                 .orElseThrow(() -> new RuntimeException("Field not found"));
 
-        if (!field.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Unauthorized access to field");
-        }
+        fieldAccessService.requireAccess(userId, field, "Unauthorized access to field");
 
         return livestockHistoryRepository.findByFieldIdOrderByDateAsc(fieldId).stream()
                 .map(h -> new com.agro.fields.dto.LivestockHistoryDTO(h.getDate(), h.getCows(), h.getBulls(),
@@ -182,47 +198,55 @@ public class FieldService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Reads the pre-summed daily totals of the user. Days without changes carry the
+     * previous total, so week and month buckets keep the last day of each bucket.
+     */
     @Transactional(readOnly = true)
-    public List<com.agro.fields.dto.LivestockHistoryDTO> getGlobalLivestockHistory(Long userId) {
-        List<LivestockHistory> allHistory = livestockHistoryRepository.findByUserId(userId);
-
-        // Map to store latest state of each field
-        // FieldId -> LivestockHistory (representing counts)
-        java.util.Map<Long, LivestockHistory> fieldStates = new java.util.HashMap<>();
-
-        // Group by Date to handle multiple updates on same day
-        java.util.Map<java.time.LocalDate, List<LivestockHistory>> byDate = allHistory.stream()
-                .collect(Collectors.groupingBy(LivestockHistory::getDate, java.util.TreeMap::new, Collectors.toList()));
+    public List<com.agro.fields.dto.LivestockHistoryDTO> getGlobalLivestockHistory(Long userId, LocalDate from,
+            LocalDate to, LivestockHistoryBucket bucket) {
+        List<LivestockDailyTotal> totals;
+        if (from != null && to != null) {
+            totals = dailyTotalRepository.findByUserIdAndDateBetweenOrderByDateAsc(userId, from, to);
+        } else if (from != null) {
+            totals = dailyTotalRepository.findByUserIdAndDateGreaterThanEqualOrderByDateAsc(userId, from);
+        } else if (to != null) {
+            totals = dailyTotalRepository.findByUserIdAndDateLessThanEqualOrderByDateAsc(userId, to);
+        } else {
+            totals = dailyTotalRepository.findByUserIdOrderByDateAsc(userId);
+        }
 
         List<com.agro.fields.dto.LivestockHistoryDTO> result = new java.util.ArrayList<>();
-
-        // Accumulate state over time
-        for (java.util.Map.Entry<java.time.LocalDate, List<LivestockHistory>> entry : byDate.entrySet()) {
-            java.time.LocalDate date = entry.getKey();
-            List<LivestockHistory> updates = entry.getValue();
-
-            // Apply updates
-            for (LivestockHistory update : updates) {
-                fieldStates.put(update.getField().getId(), update);
+        LocalDate currentBucket = null;
+        if (from != null) {
+            // Totals are only stored on days with changes; carry in the herd as it stood before from.
+            LivestockDailyTotal carried = dailyTotalRepository
+                    .findFirstByUserIdAndDateLessThanOrderByDateDesc(userId, from).orElse(null);
+            if (carried != null) {
+                currentBucket = bucketStart(from, bucket);
+                result.add(new com.agro.fields.dto.LivestockHistoryDTO(from, carried.getCows(),
+                        carried.getBulls(), carried.getSteers(), carried.getYoungSteers(), carried.getHeifers(),
+                        carried.getMaleCalves(), carried.getFemaleCalves()));
             }
-
-            // Calculate totals
-            int cows = 0, bulls = 0, steers = 0, youngSteers = 0, heifers = 0, maleCalves = 0, femaleCalves = 0;
-
-            for (LivestockHistory state : fieldStates.values()) {
-                cows += state.getCows();
-                bulls += state.getBulls();
-                steers += state.getSteers();
-                youngSteers += state.getYoungSteers();
-                heifers += state.getHeifers();
-                maleCalves += state.getMaleCalves();
-                femaleCalves += state.getFemaleCalves();
+        }
+        for (LivestockDailyTotal total : totals) {
+            LocalDate key = bucketStart(total.getDate(), bucket);
+            if (key.equals(currentBucket)) {
+                result.remove(result.size() - 1);
             }
-
-            result.add(new com.agro.fields.dto.LivestockHistoryDTO(
-                    date, cows, bulls, steers, youngSteers, heifers, maleCalves, femaleCalves));
+            currentBucket = key;
+            result.add(new com.agro.fields.dto.LivestockHistoryDTO(total.getDate(), total.getCows(),
+                    total.getBulls(), total.getSteers(), total.getYoungSteers(), total.getHeifers(),
+                    total.getMaleCalves(), total.getFemaleCalves()));
         }
-
         return result;
     }
+
+    private LocalDate bucketStart(LocalDate date, LivestockHistoryBucket bucket) {
+        return switch (bucket) {
+            case DAY -> date;
+            case WEEK -> date.with(java.time.temporal.TemporalAdjusters.previousOrSame(java.time.DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
 }
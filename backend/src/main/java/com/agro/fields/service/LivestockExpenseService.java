@@ -1,25 +1,38 @@
 package com.agro.fields.service;
 
 import com.agro.agenda.AgendaEvent;
-import com.agro.agenda.AgendaService;
+import com.agro.agenda.AgendaEventSource;
+import com.agro.agenda.AgendaOutbox;
 import com.agro.agenda.dto.AgendaCreateDTO;
-import com.agro.agenda.dto.AgendaResponseDTO;
 import com.agro.currency.ExchangeRateException;
-import com.agro.currency.ExchangeRateService;
+import com.agro.currency.ExchangeRateHistoryService;
+import com.agro.common.KeysetCursor;
+import com.agro.common.KeysetPage;
 import com.agro.fields.dto.LivestockExpenseCreateDTO;
+import com.agro.fields.dto.LivestockExpenseFilter;
 import com.agro.fields.dto.LivestockExpenseResponseDTO;
 import com.agro.fields.model.LivestockExpense;
 import com.agro.fields.repository.FieldRepository;
 import com.agro.fields.repository.LivestockExpenseRepository;
 import com.agro.user.User;
 import com.agro.user.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LivestockExpenseService {
@@ -27,19 +40,22 @@ public class LivestockExpenseService {
     private final LivestockExpenseRepository expenseRepository;
     private final FieldRepository fieldRepository;
     private final UserRepository userRepository;
-    private final ExchangeRateService exchangeRateService;
-    private final AgendaService agendaService;
+    private final ExchangeRateHistoryService exchangeRateHistoryService;
+    private final AgendaOutbox agendaOutbox;
+    private final EntityManager entityManager;
 
     public LivestockExpenseService(LivestockExpenseRepository expenseRepository,
             FieldRepository fieldRepository,
             UserRepository userRepository,
-            ExchangeRateService exchangeRateService,
-            AgendaService agendaService) {
+            ExchangeRateHistoryService exchangeRateHistoryService,
+            AgendaOutbox agendaOutbox,
+            EntityManager entityManager) {
         this.expenseRepository = expenseRepository;
         this.fieldRepository = fieldRepository;
         this.userRepository = userRepository;
-        this.exchangeRateService = exchangeRateService;
-        this.agendaService = agendaService;
+        this.exchangeRateHistoryService = exchangeRateHistoryService;
+        this.agendaOutbox = agendaOutbox;
+        this.entityManager = entityManager;
     }
 
     @Transactional
@@ -60,17 +76,53 @@ public class LivestockExpenseService {
 
         LivestockExpense saved = expenseRepository.save(expense);
 
-        // Create corresponding calendar event
-        createCalendarEvent(saved, user);
+        // The calendar event is created after commit by the agenda outbox
+        agendaOutbox.upsert(user.getId(), AgendaEventSource.LIVESTOCK_EXPENSE, saved.getId(), null,
+                buildAgendaEvent(saved));
 
         return mapToDTO(saved);
     }
 
     @Transactional(readOnly = true)
-    public List<LivestockExpenseResponseDTO> getExpenses(Long userId) {
-        return expenseRepository.findByUserIdOrderByDateDesc(userId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    public KeysetPage<LivestockExpenseResponseDTO> getExpenses(Long userId, LivestockExpenseFilter filter,
+            String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        // One extra row tells whether there is a next page
+        Pageable page = limit != null ? PageRequest.of(0, limit + 1) : Pageable.unpaged();
+        List<LivestockExpense> rows = expenseRepository.findPage(userId, filter.getFrom(), filter.getTo(),
+                filter.getFieldId(), after != null ? after.getDate() : null, after != null ? after.getId() : null,
+                page);
+
+        String nextCursor = null;
+        if (limit != null && rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            LivestockExpense last = rows.get(limit - 1);
+            nextCursor = new KeysetCursor(last.getDate(), last.getId()).encode();
+        }
+        Map<Long, String> fieldNames = findFieldNames(rows);
+        return new KeysetPage<>(rows.stream()
+                .map(e -> mapToDTO(e, fieldNames.get(e.getFieldId())))
+                .collect(Collectors.toList()), nextCursor);
+    }
+
+    /**
+     * Hands every matching expense to the sink as it is read, without loading the
+     * whole list.
+     */
+    @Transactional(readOnly = true)
+    public void streamExpenses(Long userId, LivestockExpenseFilter filter, Consumer<LivestockExpenseResponseDTO> sink) {
+        try (Stream<LivestockExpense> rows = expenseRepository.streamFiltered(userId, filter.getFrom(),
+                filter.getTo(), filter.getFieldId())) {
+            // Expenses only point to a handful of fields, so names are looked up once each
+            Map<Long, String> fieldNames = new HashMap<>();
+            rows.forEach(e -> {
+                String fieldName = e.getFieldId() != null
+                        ? fieldNames.computeIfAbsent(e.getFieldId(), id -> findFieldNames(List.of(e)).get(id))
+                        : null;
+                sink.accept(mapToDTO(e, fieldName));
+                entityManager.detach(e);
+            });
+        }
     }
 
     @Transactional
@@ -93,14 +145,8 @@ public class LivestockExpenseService {
 
         LivestockExpense saved = expenseRepository.save(expense);
 
-        // Update associated agenda event if exists
-        if (saved.getAgendaEventId() != null) {
-            try {
-                updateAgendaEvent(saved);
-            } catch (Exception e) {
-                System.err.println("Failed to update calendar event: " + e.getMessage());
-            }
-        }
+        agendaOutbox.upsert(saved.getUser().getId(), AgendaEventSource.LIVESTOCK_EXPENSE, saved.getId(),
+                saved.getAgendaEventId(), buildAgendaEvent(saved));
 
         return mapToDTO(saved);
     }
@@ -114,14 +160,9 @@ public class LivestockExpenseService {
             throw new RuntimeException("Unauthorized");
         }
 
-        // Delete associated calendar event if exists
-        if (expense.getAgendaEventId() != null) {
-            try {
-                agendaService.deleteEvent(expense.getUser().getId(), expense.getAgendaEventId());
-            } catch (Exception e) {
-                System.err.println("Failed to delete calendar event: " + e.getMessage());
-            }
-        }
+        // Also removes an event whose creation is still queued
+        agendaOutbox.delete(userId, AgendaEventSource.LIVESTOCK_EXPENSE, expense.getId(),
+                expense.getAgendaEventId());
 
         expenseRepository.delete(expense);
     }
@@ -134,7 +175,8 @@ public class LivestockExpenseService {
             BigDecimal exchangeRate = dto.getExchangeRate();
             if (exchangeRate == null) {
                 try {
-                    exchangeRate = exchangeRateService.getCurrentExchangeRate();
+                    exchangeRate = exchangeRateHistoryService.getRateOn(
+                            expense.getDate() != null ? expense.getDate() : LocalDate.now());
                 } catch (ExchangeRateException e) {
                     throw new RuntimeException("Failed to get exchange rate. Please provide it manually.", e);
                 }
@@ -147,38 +189,15 @@ public class LivestockExpenseService {
         }
     }
 
-    private void createCalendarEvent(LivestockExpense expense, User user) {
-        try {
-            AgendaCreateDTO agendaDto = new AgendaCreateDTO();
-            agendaDto.setTitle("💸 Gasto: " + expense.getName());
-            agendaDto.setDescription(buildEventDescription(expense));
-            agendaDto.setEventType(AgendaEvent.EventType.LIVESTOCK_EXPENSE);
-            agendaDto.setStartDate(expense.getDate().atStartOfDay());
-            agendaDto.setEndDate(expense.getDate().atTime(23, 59));
-            agendaDto.setFieldId(expense.getFieldId());
-
-            AgendaResponseDTO agendaResponse = agendaService.createEvent(user.getId(), agendaDto);
-            if (agendaResponse != null && agendaResponse.getId() != null) {
-                expense.setAgendaEventId(agendaResponse.getId());
-                expenseRepository.save(expense);
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to create calendar event for expense " +
-                    expense.getId() + ": " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private void updateAgendaEvent(LivestockExpense expense) {
-        AgendaCreateDTO updateDto = new AgendaCreateDTO();
-        updateDto.setTitle("💸 Gasto: " + expense.getName());
-        updateDto.setDescription(buildEventDescription(expense));
-        updateDto.setStartDate(expense.getDate().atStartOfDay());
-        updateDto.setEndDate(expense.getDate().atTime(23, 59));
-        updateDto.setEventType(AgendaEvent.EventType.LIVESTOCK_EXPENSE);
-        updateDto.setFieldId(expense.getFieldId());
-
-        agendaService.updateEvent(expense.getUser().getId(), expense.getAgendaEventId(), updateDto);
+    private AgendaCreateDTO buildAgendaEvent(LivestockExpense expense) {
+        AgendaCreateDTO agendaDto = new AgendaCreateDTO();
+        agendaDto.setTitle("💸 Gasto: " + expense.getName());
+        agendaDto.setDescription(buildEventDescription(expense));
+        agendaDto.setEventType(AgendaEvent.EventType.LIVESTOCK_EXPENSE);
+        agendaDto.setStartDate(expense.getDate().atStartOfDay());
+        agendaDto.setEndDate(expense.getDate().atTime(23, 59));
+        agendaDto.setFieldId(expense.getFieldId());
+        return agendaDto;
     }
 
     private String buildEventDescription(LivestockExpense expense) {
@@ -194,14 +213,25 @@ public class LivestockExpenseService {
         return desc.toString();
     }
 
-    private LivestockExpenseResponseDTO mapToDTO(LivestockExpense e) {
-        String fieldName = null;
-        if (e.getFieldId() != null) {
-            fieldName = fieldRepository.findById(e.getFieldId())
-                    .map(f -> f.getName())
-                    .orElse(null);
+    private Map<Long, String> findFieldNames(List<LivestockExpense> expenses) {
+        Set<Long> fieldIds = expenses.stream()
+                .map(LivestockExpense::getFieldId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, String> names = new HashMap<>();
+        if (!fieldIds.isEmpty()) {
+            for (Object[] row : fieldRepository.findNamesByIds(fieldIds)) {
+                names.put((Long) row[0], (String) row[1]);
+            }
         }
+        return names;
+    }
+
+    private LivestockExpenseResponseDTO mapToDTO(LivestockExpense e) {
+        return mapToDTO(e, findFieldNames(List.of(e)).get(e.getFieldId()));
+    }
 
+    private LivestockExpenseResponseDTO mapToDTO(LivestockExpense e, String fieldName) {
         return new LivestockExpenseResponseDTO(
                 e.getId(),
                 e.getName(),
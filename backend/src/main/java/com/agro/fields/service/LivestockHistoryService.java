@@ -0,0 +1,102 @@
+package com.agro.fields.service;
+
+import com.agro.fields.model.Field;
+import com.agro.fields.model.LivestockCategory;
+import com.agro.fields.model.LivestockHistory;
+import com.agro.fields.model.LivestockStock;
+import com.agro.fields.repository.LivestockDailyTotalRepository;
+import com.agro.fields.repository.LivestockHistoryRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Writes the per-field livestock history and keeps the per-user daily totals in
+ * step with it, so the global history is read instead of replayed.
+ */
+@Service
+public class LivestockHistoryService {
+
+    private final LivestockHistoryRepository historyRepository;
+    private final LivestockDailyTotalRepository dailyTotalRepository;
+    private final LivestockLedgerService ledgerService;
+
+    public LivestockHistoryService(LivestockHistoryRepository historyRepository,
+            LivestockDailyTotalRepository dailyTotalRepository, LivestockLedgerService ledgerService) {
+        this.historyRepository = historyRepository;
+        this.dailyTotalRepository = dailyTotalRepository;
+        this.ledgerService = ledgerService;
+    }
+
+    /**
+     * Records today's stock of each field, replacing the field's row for the day if
+     * there is one. Must run in the transaction that changed the stock; fields are
+     * locked in id order so concurrent writers of the same field see each other's
+     * rows and the totals never miss a change.
+     */
+    @Transactional
+    public void record(Collection<Field> fields) {
+        Map<Long, Field> ordered = new TreeMap<>();
+        for (Field field : fields) {
+            if (field != null) {
+                ordered.put(field.getId(), field);
+            }
+        }
+        if (ordered.isEmpty()) {
+            return;
+        }
+
+        for (Long fieldId : ordered.keySet()) {
+            historyRepository.lockField(fieldId);
+        }
+
+        Map<Long, LivestockStock> stocks = ledgerService.currentStock(ordered.values());
+        LocalDate today = LocalDate.now();
+        for (Field field : ordered.values()) {
+            Long userId = field.getUser().getId();
+            if (!dailyTotalRepository.existsByUserId(userId)) {
+                dailyTotalRepository.backfillUser(userId);
+            }
+
+            LivestockStock stock = stocks.get(field.getId());
+            LivestockStock change = LivestockStock.empty();
+            for (LivestockCategory category : LivestockCategory.values()) {
+                change.add(category, stock.get(category));
+            }
+            historyRepository.findFirstByFieldIdOrderByDateDescIdDesc(field.getId())
+                    .ifPresent(previous -> subtract(change, previous));
+
+            historyRepository.upsert(field.getId(), today,
+                    stock.getCows(), stock.getBulls(), stock.getSteers(), stock.getYoungSteers(),
+                    stock.getHeifers(), stock.getMaleCalves(), stock.getFemaleCalves());
+            dailyTotalRepository.addToDay(userId, today,
+                    change.getCows(), change.getBulls(), change.getSteers(), change.getYoungSteers(),
+                    change.getHeifers(), change.getMaleCalves(), change.getFemaleCalves());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillDailyTotals() {
+        for (Long userId : dailyTotalRepository.findUserIdsMissingTotals()) {
+            dailyTotalRepository.backfillUser(userId);
+        }
+    }
+
+    private void subtract(LivestockStock stock, LivestockHistory previous) {
+        stock.add(LivestockCategory.COWS, -Objects.requireNonNullElse(previous.getCows(), 0));
+        stock.add(LivestockCategory.BULLS, -Objects.requireNonNullElse(previous.getBulls(), 0));
+        stock.add(LivestockCategory.STEERS, -Objects.requireNonNullElse(previous.getSteers(), 0));
+        stock.add(LivestockCategory.YOUNG_STEERS, -Objects.requireNonNullElse(previous.getYoungSteers(), 0));
+        stock.add(LivestockCategory.HEIFERS, -Objects.requireNonNullElse(previous.getHeifers(), 0));
+        stock.add(LivestockCategory.MALE_CALVES, -Objects.requireNonNullElse(previous.getMaleCalves(), 0));
+        stock.add(LivestockCategory.FEMALE_CALVES, -Objects.requireNonNullElse(previous.getFemaleCalves(), 0));
+    }
+}
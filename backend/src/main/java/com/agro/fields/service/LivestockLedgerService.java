@@ -0,0 +1,144 @@
+package com.agro.fields.service;
+
+import com.agro.fields.model.Field;
+import com.agro.fields.model.LivestockCategory;
+import com.agro.fields.model.LivestockDeltaType;
+import com.agro.fields.model.LivestockStock;
+import com.agro.fields.model.LivestockStockDelta;
+import com.agro.fields.repository.FieldRepository;
+import com.agro.fields.repository.LivestockStockDeltaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only stock ledger. The counters stored on {@link Field} are the opening
+ * stock; the current stock is that baseline plus every delta that has not been
+ * folded into a snapshot yet, read in a single statement.
+ *
+ * Appenders hold a row lock on the fields they touch and compaction holds an
+ * exclusive one, so a snapshot never misses a delta from an open transaction.
+ */
+@Service
+public class LivestockLedgerService {
+
+    private final LivestockStockDeltaRepository deltaRepository;
+    private final FieldRepository fieldRepository;
+
+    public LivestockLedgerService(LivestockStockDeltaRepository deltaRepository, FieldRepository fieldRepository) {
+        this.deltaRepository = deltaRepository;
+        this.fieldRepository = fieldRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public LivestockStock currentStock(Field field) {
+        return currentStock(List.of(field)).get(field.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, LivestockStock> currentStock(Collection<Field> fields) {
+        Map<Long, LivestockStock> stocks = new HashMap<>();
+        for (Field field : fields) {
+            stocks.put(field.getId(), LivestockStock.of(field));
+        }
+        if (stocks.isEmpty()) {
+            return stocks;
+        }
+
+        for (Object[] row : deltaRepository.sumLiveDeltas(stocks.keySet())) {
+            stocks.get((Long) row[0]).add((LivestockCategory) row[1], ((Number) row[2]).intValue());
+        }
+        return stocks;
+    }
+
+    /**
+     * Takes the row locks that must be held while appending deltas: exclusive for
+     * fields whose stock may go down (so the availability check and the append are
+     * atomic), shared for fields that only receive animals. Locks are always taken
+     * in id order so two opposite MOVEs cannot deadlock.
+     */
+    @Transactional
+    public void lockForAppend(Collection<Field> decreasing, Collection<Field> increasing) {
+        TreeMap<Long, Boolean> exclusive = new TreeMap<>();
+        for (Field field : increasing) {
+            if (field != null) {
+                exclusive.putIfAbsent(field.getId(), false);
+            }
+        }
+        for (Field field : decreasing) {
+            if (field != null) {
+                exclusive.put(field.getId(), true);
+            }
+        }
+
+        exclusive.forEach((fieldId, forUpdate) -> {
+            if (forUpdate) {
+                fieldRepository.lockForUpdate(fieldId);
+            } else {
+                fieldRepository.lockForShare(fieldId);
+            }
+        });
+    }
+
+    @Transactional
+    public void increase(Field field, LivestockCategory category, int amount, Long transactionId,
+            LivestockDeltaType type) {
+        deltaRepository.save(new LivestockStockDelta(field.getId(), transactionId, category, amount, type));
+    }
+
+    /**
+     * Callers must hold the exclusive lock from {@link #lockForAppend} on the field.
+     */
+    @Transactional
+    public void decrease(Field field, LivestockCategory category, int amount, Long transactionId,
+            LivestockDeltaType type) {
+        int current = currentStock(field).get(category);
+        if (current < amount) {
+            throw new RuntimeException("Insufficient stock in field " + field.getName() + " for category " + category);
+        }
+        deltaRepository.save(new LivestockStockDelta(field.getId(), transactionId, category, -amount, type));
+    }
+
+    /**
+     * Appends pre-validated deltas, e.g. from a bulk import that checked them against
+     * a working copy of the stock while holding the locks from {@link #lockForAppend}.
+     */
+    @Transactional
+    public void append(Collection<LivestockStockDelta> deltas) {
+        deltaRepository.saveAll(deltas);
+    }
+
+    /**
+     * Folds every live delta of the field into one SNAPSHOT row per category.
+     */
+    @Transactional
+    public void snapshot(Long fieldId) {
+        Field field = fieldRepository.lockForUpdate(fieldId).orElse(null);
+        if (field == null) {
+            return;
+        }
+
+        LivestockStock pending = LivestockStock.empty();
+        for (Object[] row : deltaRepository.sumLiveDeltas(List.of(fieldId))) {
+            pending.add((LivestockCategory) row[1], ((Number) row[2]).intValue());
+        }
+
+        deltaRepository.markCompacted(fieldId);
+        for (LivestockCategory category : LivestockCategory.values()) {
+            if (pending.get(category) != 0) {
+                deltaRepository.save(new LivestockStockDelta(fieldId, null, category, pending.get(category),
+                        LivestockDeltaType.SNAPSHOT));
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findFieldsDueForSnapshot(long threshold) {
+        return deltaRepository.findFieldIdsDueForSnapshot(threshold);
+    }
+}
@@ -0,0 +1,29 @@
+package com.agro.fields.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LivestockSnapshotScheduler {
+
+    private final LivestockLedgerService ledgerService;
+    private final long threshold;
+
+    public LivestockSnapshotScheduler(LivestockLedgerService ledgerService,
+            @Value("${livestock.ledger.snapshot-threshold:50}") long threshold) {
+        this.ledgerService = ledgerService;
+        this.threshold = threshold;
+    }
+
+    @Scheduled(fixedDelayString = "${livestock.ledger.snapshot-interval-ms:300000}")
+    public void compactLedger() {
+        for (Long fieldId : ledgerService.findFieldsDueForSnapshot(threshold)) {
+            try {
+                ledgerService.snapshot(fieldId);
+            } catch (Exception e) {
+                System.err.println("Failed to snapshot stock for field " + fieldId + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,27 +1,40 @@
 package com.agro.fields.service;
 
 import com.agro.agenda.AgendaEvent;
-import com.agro.agenda.AgendaService;
+import com.agro.agenda.AgendaEventSource;
+import com.agro.agenda.AgendaOutbox;
 import com.agro.agenda.dto.AgendaCreateDTO;
-import com.agro.agenda.dto.AgendaResponseDTO;
 import com.agro.currency.ExchangeRateException;
-import com.agro.currency.ExchangeRateService;
+import com.agro.currency.ExchangeRateHistoryService;
+import com.agro.common.KeysetCursor;
+import com.agro.common.KeysetPage;
+import com.agro.fields.dto.LivestockBatchResultDTO;
 import com.agro.fields.dto.LivestockTransactionCreateDTO;
+import com.agro.fields.dto.LivestockTransactionFilter;
 import com.agro.fields.dto.LivestockTransactionResponseDTO;
 import com.agro.fields.model.*;
 import com.agro.fields.repository.FieldRepository;
-import com.agro.fields.repository.LivestockHistoryRepository;
 import com.agro.fields.repository.LivestockTransactionRepository;
 import com.agro.user.User;
 import com.agro.user.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LivestockTransactionService {
@@ -29,22 +42,31 @@ public class LivestockTransactionService {
     private final LivestockTransactionRepository transactionRepository;
     private final FieldRepository fieldRepository;
     private final UserRepository userRepository;
-    private final LivestockHistoryRepository livestockHistoryRepository;
-    private final ExchangeRateService exchangeRateService;
-    private final AgendaService agendaService;
+    private final LivestockHistoryService historyService;
+    private final ExchangeRateHistoryService exchangeRateHistoryService;
+    private final AgendaOutbox agendaOutbox;
+    private final LivestockLedgerService ledgerService;
+    private final EntityManager entityManager;
+    private final FieldAccessService fieldAccessService;
 
     public LivestockTransactionService(LivestockTransactionRepository transactionRepository,
             FieldRepository fieldRepository,
             UserRepository userRepository,
-            LivestockHistoryRepository livestockHistoryRepository,
-            ExchangeRateService exchangeRateService,
-            AgendaService agendaService) {
+            LivestockHistoryService historyService,
+            ExchangeRateHistoryService exchangeRateHistoryService,
+            AgendaOutbox agendaOutbox,
+            LivestockLedgerService ledgerService,
+            EntityManager entityManager,
+            FieldAccessService fieldAccessService) {
         this.transactionRepository = transactionRepository;
         this.fieldRepository = fieldRepository;
         this.userRepository = userRepository;
-        this.livestockHistoryRepository = livestockHistoryRepository;
-        this.exchangeRateService = exchangeRateService;
-        this.agendaService = agendaService;
+        this.historyService = historyService;
+        this.exchangeRateHistoryService = exchangeRateHistoryService;
+        this.agendaOutbox = agendaOutbox;
+        this.ledgerService = ledgerService;
+        this.entityManager = entityManager;
+        this.fieldAccessService = fieldAccessService;
     }
 
     @Transactional
@@ -56,18 +78,14 @@ public class LivestockTransactionService {
         if (dto.getSourceFieldId() != null) {
             sourceField = fieldRepository.findById(dto.getSourceFieldId())
                     .orElseThrow(() -> new RuntimeException("Source field not found"));
-            if (!sourceField.getUser().getId().equals(userId)) {
-                throw new RuntimeException("Unauthorized access to source field");
-            }
+            fieldAccessService.requireAccess(userId, sourceField, "Unauthorized access to source field");
         }
 
         Field targetField = null;
         if (dto.getTargetFieldId() != null) {
             targetField = fieldRepository.findById(dto.getTargetFieldId())
                     .orElseThrow(() -> new RuntimeException("Target field not found"));
-            if (!targetField.getUser().getId().equals(userId)) {
-                throw new RuntimeException("Unauthorized access to target field");
-            }
+            fieldAccessService.requireAccess(userId, targetField, "Unauthorized access to target field");
         }
 
         Integer qty = dto.getQuantity();
@@ -75,37 +93,7 @@ public class LivestockTransactionService {
             throw new RuntimeException("Quantity must be positive");
         }
 
-        // Logic based on Action Type
-        switch (dto.getActionType()) {
-            case BIRTH:
-            case PURCHASE:
-                if (targetField == null)
-                    throw new RuntimeException("Target field is required for " + dto.getActionType());
-                increaseStock(targetField, dto.getCategory(), qty);
-                break;
-            case DEATH:
-            case SALE:
-                if (sourceField == null)
-                    throw new RuntimeException("Source field is required for " + dto.getActionType());
-                decreaseStock(sourceField, dto.getCategory(), qty);
-                break;
-            case MOVE:
-                if (sourceField == null || targetField == null)
-                    throw new RuntimeException("Source and Target fields are required for MOVE");
-                decreaseStock(sourceField, dto.getCategory(), qty);
-                increaseStock(targetField, dto.getCategory(), qty);
-                break;
-        }
-
-        // Save fields and history
-        if (sourceField != null) {
-            fieldRepository.save(sourceField);
-            saveHistory(sourceField);
-        }
-        if (targetField != null) {
-            fieldRepository.save(targetField);
-            saveHistory(targetField);
-        }
+        requireFields(dto.getActionType(), sourceField, targetField);
 
         // Save transaction
         LivestockTransaction transaction = new LivestockTransaction(
@@ -120,50 +108,176 @@ public class LivestockTransactionService {
 
         // Handle currency conversion for financial tracking
         if (dto.getPricePerUnit() != null) {
-            transaction.setPricePerUnit(dto.getPricePerUnit());
-            transaction.setCurrency(dto.getCurrency() != null ? dto.getCurrency() : "USD");
-
-            // Convert to USD if currency is ARS
-            if ("ARS".equals(transaction.getCurrency())) {
-                BigDecimal exchangeRate = dto.getExchangeRate();
-                if (exchangeRate == null) {
-                    try {
-                        exchangeRate = exchangeRateService.getCurrentExchangeRate();
-                    } catch (ExchangeRateException e) {
-                        throw new RuntimeException("Failed to get exchange rate. Please provide it manually.", e);
-                    }
+            updateFinancialFields(transaction, dto);
+        }
+
+        LivestockTransaction saved = transactionRepository.save(transaction);
+
+        // Append the stock deltas and history
+        ledgerService.lockForAppend(Arrays.asList(decreasedSide(saved.getActionType(), sourceField, targetField)),
+                Arrays.asList(increasedSide(saved.getActionType(), sourceField, targetField)));
+        applyStockEffect(saved.getActionType(), sourceField, targetField, saved.getCategory(), qty, saved.getId(),
+                LivestockDeltaType.EVENT);
+        historyService.record(Arrays.asList(sourceField, targetField));
+
+        // The calendar event is created after commit by the agenda outbox
+        agendaOutbox.upsert(user.getId(), AgendaEventSource.LIVESTOCK_TRANSACTION, saved.getId(), null,
+                buildAgendaEvent(saved));
+
+        return mapToDTO(saved);
+    }
+
+    /**
+     * Imports many transactions at once. Every row is validated in memory against a
+     * working copy of the stock of the user's fields, in order, so a row may rely on
+     * animals added by an earlier one. Invalid rows are reported and skipped; the
+     * accepted ones are inserted in JDBC batches within a single transaction.
+     */
+    @Transactional
+    public List<LivestockBatchResultDTO> createTransactions(Long userId, List<LivestockTransactionCreateDTO> dtos) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Map<Long, Field> fields = fieldRepository.findByUserIdIn(fieldAccessService.getAccessibleOwnerIds(userId))
+                .stream()
+                .collect(Collectors.toMap(Field::getId, f -> f));
+
+        // Lock every field the batch may touch before reading the stock
+        List<Field> decreasing = new ArrayList<>();
+        List<Field> increasing = new ArrayList<>();
+        for (LivestockTransactionCreateDTO dto : dtos) {
+            if (dto.getActionType() != null) {
+                decreasing.add(decreasedSide(dto.getActionType(), fields.get(dto.getSourceFieldId()),
+                        fields.get(dto.getTargetFieldId())));
+                increasing.add(increasedSide(dto.getActionType(), fields.get(dto.getSourceFieldId()),
+                        fields.get(dto.getTargetFieldId())));
+            }
+        }
+        ledgerService.lockForAppend(decreasing, increasing);
+        Map<Long, LivestockStock> stock = ledgerService.currentStock(fields.values());
+
+        List<LivestockBatchResultDTO> results = new ArrayList<>(dtos.size());
+        List<LivestockTransaction> accepted = new ArrayList<>();
+        List<Integer> acceptedRows = new ArrayList<>();
+        Set<Field> touchedFields = new LinkedHashSet<>();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            LivestockTransactionCreateDTO dto = dtos.get(i);
+            try {
+                if (dto.getActionType() == null || dto.getCategory() == null) {
+                    throw new RuntimeException("Action type and category are required");
+                }
+                Integer qty = dto.getQuantity();
+                if (qty == null || qty <= 0) {
+                    throw new RuntimeException("Quantity must be positive");
+                }
+
+                Field sourceField = lookupField(fields, dto.getSourceFieldId(), "Source");
+                Field targetField = lookupField(fields, dto.getTargetFieldId(), "Target");
+                requireFields(dto.getActionType(), sourceField, targetField);
+
+                Field decreased = decreasedSide(dto.getActionType(), sourceField, targetField);
+                Field increased = increasedSide(dto.getActionType(), sourceField, targetField);
+                if (decreased != null && stock.get(decreased.getId()).get(dto.getCategory()) < qty) {
+                    throw new RuntimeException("Insufficient stock in field " + decreased.getName()
+                            + " for category " + dto.getCategory());
+                }
+
+                LivestockTransaction transaction = new LivestockTransaction(
+                        user,
+                        sourceField,
+                        targetField,
+                        dto.getCategory(),
+                        qty,
+                        dto.getActionType(),
+                        dto.getDate() != null ? dto.getDate() : LocalDate.now(),
+                        dto.getNotes());
+                if (dto.getPricePerUnit() != null) {
+                    updateFinancialFields(transaction, dto);
                 }
-                transaction.setExchangeRate(exchangeRate);
-                transaction.setPricePerUnitUSD(dto.getPricePerUnit().divide(exchangeRate, 2, RoundingMode.HALF_UP));
 
-                // Convert salvage value if present
-                if (dto.getSalvageValue() != null) {
-                    transaction.setSalvageValue(dto.getSalvageValue());
-                    transaction.setSalvageValueUSD(dto.getSalvageValue().divide(exchangeRate, 2, RoundingMode.HALF_UP));
+                if (decreased != null) {
+                    stock.get(decreased.getId()).add(dto.getCategory(), -qty);
+                    touchedFields.add(decreased);
                 }
-            } else {
-                // USD - no conversion needed
-                transaction.setPricePerUnitUSD(dto.getPricePerUnit());
-                if (dto.getSalvageValue() != null) {
-                    transaction.setSalvageValue(dto.getSalvageValue());
-                    transaction.setSalvageValueUSD(dto.getSalvageValue());
+                if (increased != null) {
+                    stock.get(increased.getId()).add(dto.getCategory(), qty);
+                    touchedFields.add(increased);
                 }
+
+                accepted.add(transaction);
+                acceptedRows.add(i);
+                results.add(null);
+            } catch (RuntimeException e) {
+                results.add(LivestockBatchResultDTO.rejected(i, e.getMessage()));
             }
         }
 
-        LivestockTransaction saved = transactionRepository.save(transaction);
+        // Ids come from the sequence, so these inserts are batched at flush time
+        transactionRepository.saveAll(accepted);
 
-        // Create corresponding calendar event (non-critical, don't fail if it errors)
-        createCalendarEventAsync(saved, user);
+        List<LivestockStockDelta> deltas = new ArrayList<>();
+        for (LivestockTransaction t : accepted) {
+            Field decreased = decreasedSide(t.getActionType(), t.getSourceField(), t.getTargetField());
+            Field increased = increasedSide(t.getActionType(), t.getSourceField(), t.getTargetField());
+            if (decreased != null) {
+                deltas.add(new LivestockStockDelta(decreased.getId(), t.getId(), t.getCategory(), -t.getQuantity(),
+                        LivestockDeltaType.EVENT));
+            }
+            if (increased != null) {
+                deltas.add(new LivestockStockDelta(increased.getId(), t.getId(), t.getCategory(), t.getQuantity(),
+                        LivestockDeltaType.EVENT));
+            }
+        }
+        ledgerService.append(deltas);
 
-        return mapToDTO(saved);
+        historyService.record(touchedFields);
+
+        for (LivestockTransaction t : accepted) {
+            agendaOutbox.upsert(user.getId(), AgendaEventSource.LIVESTOCK_TRANSACTION, t.getId(), null,
+                    buildAgendaEvent(t));
+        }
+
+        for (int i = 0; i < accepted.size(); i++) {
+            int row = acceptedRows.get(i);
+            results.set(row, LivestockBatchResultDTO.created(row, accepted.get(i).getId()));
+        }
+        return results;
     }
 
     @Transactional(readOnly = true)
-    public List<LivestockTransactionResponseDTO> getTransactions(Long userId) {
-        return transactionRepository.findByUserIdOrderByDateDesc(userId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    public KeysetPage<LivestockTransactionResponseDTO> getTransactions(Long userId,
+            LivestockTransactionFilter filter, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        // One extra row tells whether there is a next page
+        Pageable page = limit != null ? PageRequest.of(0, limit + 1) : Pageable.unpaged();
+        List<LivestockTransaction> rows = transactionRepository.findPage(userId, filter.getFrom(), filter.getTo(),
+                filter.getFieldId(), filter.getCategory(), filter.getActionType(),
+                after != null ? after.getDate() : null, after != null ? after.getId() : null, page);
+
+        String nextCursor = null;
+        if (limit != null && rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            LivestockTransaction last = rows.get(limit - 1);
+            nextCursor = new KeysetCursor(last.getDate(), last.getId()).encode();
+        }
+        return new KeysetPage<>(rows.stream().map(this::mapToDTO).collect(Collectors.toList()), nextCursor);
+    }
+
+    /**
+     * Hands every matching transaction to the sink as it is read, without loading
+     * the whole list.
+     */
+    @Transactional(readOnly = true)
+    public void streamTransactions(Long userId, LivestockTransactionFilter filter,
+            Consumer<LivestockTransactionResponseDTO> sink) {
+        try (Stream<LivestockTransaction> rows = transactionRepository.streamFiltered(userId, filter.getFrom(),
+                filter.getTo(), filter.getFieldId(), filter.getCategory(), filter.getActionType())) {
+            rows.forEach(t -> {
+                sink.accept(mapToDTO(t));
+                entityManager.detach(t);
+            });
+        }
     }
 
     @Transactional
@@ -176,112 +290,36 @@ public class LivestockTransactionService {
             throw new RuntimeException("Unauthorized");
         }
 
-        // Revert old transaction effect
-        // If it was an action that INCREASED stock on target, we DECREASE it.
-        // If it was an action that DECREASED stock on source, we INCREASE it.
+        // Revert old transaction effect by appending compensating deltas.
+        // Both sides may lose animals between the revert and the new values.
         Field sourceField = transaction.getSourceField();
         Field targetField = transaction.getTargetField();
-        Integer oldQty = transaction.getQuantity();
-        LivestockCategory oldCategory = transaction.getCategory();
-
-        // Revert logic
-        switch (transaction.getActionType()) {
-            case BIRTH:
-            case PURCHASE:
-                // Originally increased target. Revert by decreasing target.
-                if (targetField != null) {
-                    decreaseStock(targetField, oldCategory, oldQty);
-                    fieldRepository.save(targetField);
-                }
-                break;
-            case DEATH:
-            case SALE:
-                // Originally decreased source. Revert by increasing source.
-                if (sourceField != null) {
-                    increaseStock(sourceField, oldCategory, oldQty);
-                    fieldRepository.save(sourceField);
-                }
-                break;
-            case MOVE:
-                // Originally decreased source, increased target.
-                // Revert: increase source, decrease target.
-                if (sourceField != null) {
-                    increaseStock(sourceField, oldCategory, oldQty);
-                    fieldRepository.save(sourceField);
-                }
-                if (targetField != null) {
-                    decreaseStock(targetField, oldCategory, oldQty);
-                    fieldRepository.save(targetField);
-                }
-                break;
-        }
+        ledgerService.lockForAppend(Arrays.asList(sourceField, targetField), List.of());
+        applyStockEffect(transaction.getActionType(), sourceField, targetField, transaction.getCategory(),
+                transaction.getQuantity(), transaction.getId(), LivestockDeltaType.REVERSAL);
 
         // Now apply NEW transaction details
         // Note: For simplicity, we assume Source/Target fields CANNOT be changed in an
         // update, only Quantity/Date/Notes/Category.
-        // If Source/Target needed to change, it would require re-fetching fields.
-        // Let's assume for now the user is fixing a mistake in numbers or date.
         // If they want to change the FIELD, they should delete and re-create.
-
-        // Update basic fields
         transaction.setQuantity(dto.getQuantity());
         transaction.setDate(dto.getDate());
         transaction.setNotes(dto.getNotes());
         transaction.setCategory(dto.getCategory());
-        // Note: Changing category also requires re-applying stock logic to the NEW
-        // category.
-
-        Integer newQty = dto.getQuantity();
-        LivestockCategory newCategory = dto.getCategory();
-
-        // Apply new logic
-        switch (transaction.getActionType()) {
-            case BIRTH:
-            case PURCHASE:
-                if (targetField != null) {
-                    increaseStock(targetField, newCategory, newQty);
-                    fieldRepository.save(targetField);
-                    saveHistory(targetField);
-                }
-                break;
-            case DEATH:
-            case SALE:
-                if (sourceField != null) {
-                    decreaseStock(sourceField, newCategory, newQty);
-                    fieldRepository.save(sourceField);
-                    saveHistory(sourceField);
-                }
-                break;
-            case MOVE:
-                if (sourceField != null) {
-                    decreaseStock(sourceField, newCategory, newQty);
-                    fieldRepository.save(sourceField);
-                    saveHistory(sourceField);
-                }
-                if (targetField != null) {
-                    increaseStock(targetField, newCategory, newQty);
-                    fieldRepository.save(targetField);
-                    saveHistory(targetField);
-                }
-                break;
-        }
 
-        LivestockTransaction saved = transactionRepository.save(transaction);
+        applyStockEffect(transaction.getActionType(), sourceField, targetField, dto.getCategory(),
+                dto.getQuantity(), transaction.getId(), LivestockDeltaType.EVENT);
+        historyService.record(Arrays.asList(sourceField, targetField));
 
         // Update financial fields if present
         if (dto.getPricePerUnit() != null) {
-            updateFinancialFields(saved, dto);
-            saved = transactionRepository.save(saved);
+            updateFinancialFields(transaction, dto);
         }
 
-        // Update associated agenda event if exists
-        if (saved.getAgendaEventId() != null) {
-            try {
-                updateAgendaEvent(saved);
-            } catch (Exception e) {
-                System.err.println("Failed to update calendar event: " + e.getMessage());
-            }
-        }
+        LivestockTransaction saved = transactionRepository.save(transaction);
+
+        agendaOutbox.upsert(saved.getUser().getId(), AgendaEventSource.LIVESTOCK_TRANSACTION, saved.getId(),
+                saved.getAgendaEventId(), buildAgendaEvent(saved));
 
         return mapToDTO(saved);
     }
@@ -297,140 +335,119 @@ public class LivestockTransactionService {
 
         Field sourceField = transaction.getSourceField();
         Field targetField = transaction.getTargetField();
-        Integer quantity = transaction.getQuantity();
-        LivestockCategory category = transaction.getCategory();
 
         // Revert effect before deleting
-        switch (transaction.getActionType()) {
+        LivestockActionType actionType = transaction.getActionType();
+        ledgerService.lockForAppend(Arrays.asList(increasedSide(actionType, sourceField, targetField)),
+                Arrays.asList(decreasedSide(actionType, sourceField, targetField)));
+        applyStockEffect(actionType, sourceField, targetField, transaction.getCategory(),
+                transaction.getQuantity(), transaction.getId(), LivestockDeltaType.REVERSAL);
+        historyService.record(Arrays.asList(sourceField, targetField));
+
+        // Also removes an event whose creation is still queued
+        agendaOutbox.delete(userId, AgendaEventSource.LIVESTOCK_TRANSACTION, transaction.getId(),
+                transaction.getAgendaEventId());
+
+        transactionRepository.delete(transaction);
+    }
+
+    /**
+     * Appends the ledger deltas of an action. A REVERSAL appends the opposite
+     * deltas, so undoing a transaction never rewrites earlier rows. Callers lock
+     * the fields through the ledger first.
+     */
+    private void applyStockEffect(LivestockActionType actionType, Field sourceField, Field targetField,
+            LivestockCategory category, int quantity, Long transactionId, LivestockDeltaType type) {
+        boolean revert = type == LivestockDeltaType.REVERSAL;
+
+        switch (actionType) {
             case BIRTH:
             case PURCHASE:
+                // Increases target
                 if (targetField != null) {
-                    decreaseStock(targetField, category, quantity);
-                    fieldRepository.save(targetField);
-                    saveHistory(targetField);
+                    if (revert) {
+                        ledgerService.decrease(targetField, category, quantity, transactionId, type);
+                    } else {
+                        ledgerService.increase(targetField, category, quantity, transactionId, type);
+                    }
                 }
                 break;
             case DEATH:
             case SALE:
+                // Decreases source
                 if (sourceField != null) {
-                    increaseStock(sourceField, category, quantity);
-                    fieldRepository.save(sourceField);
-                    saveHistory(sourceField);
+                    if (revert) {
+                        ledgerService.increase(sourceField, category, quantity, transactionId, type);
+                    } else {
+                        ledgerService.decrease(sourceField, category, quantity, transactionId, type);
+                    }
                 }
                 break;
             case MOVE:
-                if (sourceField != null) {
-                    increaseStock(sourceField, category, quantity);
-                    fieldRepository.save(sourceField);
-                    saveHistory(sourceField);
-                }
-                if (targetField != null) {
-                    decreaseStock(targetField, category, quantity);
-                    fieldRepository.save(targetField);
-                    saveHistory(targetField);
+                // Decreases source, increases target
+                if (revert) {
+                    if (targetField != null) {
+                        ledgerService.decrease(targetField, category, quantity, transactionId, type);
+                    }
+                    if (sourceField != null) {
+                        ledgerService.increase(sourceField, category, quantity, transactionId, type);
+                    }
+                } else {
+                    if (sourceField != null) {
+                        ledgerService.decrease(sourceField, category, quantity, transactionId, type);
+                    }
+                    if (targetField != null) {
+                        ledgerService.increase(targetField, category, quantity, transactionId, type);
+                    }
                 }
                 break;
         }
-
-        // Delete associated calendar event if exists
-        if (transaction.getAgendaEventId() != null) {
-            try {
-                agendaService.deleteEvent(transaction.getAgendaEventId(), userId);
-            } catch (Exception e) {
-                // Log error but continue with transaction deletion
-                System.err.println("Failed to delete calendar event: " + e.getMessage());
-            }
-        }
-
-        transactionRepository.delete(transaction);
     }
 
-    private void increaseStock(Field field, LivestockCategory category, int amount) {
-        switch (category) {
-            case COWS:
-                field.setCows((field.getCows() == null ? 0 : field.getCows()) + amount);
-                break;
-            case BULLS:
-                field.setBulls((field.getBulls() == null ? 0 : field.getBulls()) + amount);
-                break;
-            case STEERS:
-                field.setSteers((field.getSteers() == null ? 0 : field.getSteers()) + amount);
-                break;
-            case YOUNG_STEERS:
-                field.setYoungSteers((field.getYoungSteers() == null ? 0 : field.getYoungSteers()) + amount);
-                break;
-            case HEIFERS:
-                field.setHeifers((field.getHeifers() == null ? 0 : field.getHeifers()) + amount);
+    private void requireFields(LivestockActionType actionType, Field sourceField, Field targetField) {
+        switch (actionType) {
+            case BIRTH:
+            case PURCHASE:
+                if (targetField == null)
+                    throw new RuntimeException("Target field is required for " + actionType);
                 break;
-            case MALE_CALVES:
-                field.setMaleCalves((field.getMaleCalves() == null ? 0 : field.getMaleCalves()) + amount);
+            case DEATH:
+            case SALE:
+                if (sourceField == null)
+                    throw new RuntimeException("Source field is required for " + actionType);
                 break;
-            case FEMALE_CALVES:
-                field.setFemaleCalves((field.getFemaleCalves() == null ? 0 : field.getFemaleCalves()) + amount);
+            case MOVE:
+                if (sourceField == null || targetField == null)
+                    throw new RuntimeException("Source and Target fields are required for MOVE");
                 break;
         }
     }
 
-    private void decreaseStock(Field field, LivestockCategory category, int amount) {
-        int current = 0;
-        switch (category) {
-            case COWS:
-                current = field.getCows() == null ? 0 : field.getCows();
-                break;
-            case BULLS:
-                current = field.getBulls() == null ? 0 : field.getBulls();
-                break;
-            case STEERS:
-                current = field.getSteers() == null ? 0 : field.getSteers();
-                break;
-            case YOUNG_STEERS:
-                current = field.getYoungSteers() == null ? 0 : field.getYoungSteers();
-                break;
-            case HEIFERS:
-                current = field.getHeifers() == null ? 0 : field.getHeifers();
-                break;
-            case MALE_CALVES:
-                current = field.getMaleCalves() == null ? 0 : field.getMaleCalves();
-                break;
-            case FEMALE_CALVES:
-                current = field.getFemaleCalves() == null ? 0 : field.getFemaleCalves();
-                break;
+    private Field lookupField(Map<Long, Field> fields, Long fieldId, String role) {
+        if (fieldId == null) {
+            return null;
         }
-
-        if (current < amount) {
-            throw new RuntimeException("Insufficient stock in field " + field.getName() + " for category " + category);
+        Field field = fields.get(fieldId);
+        if (field == null) {
+            throw new RuntimeException(role + " field not found");
         }
+        return field;
+    }
 
-        switch (category) {
-            case COWS:
-                field.setCows(current - amount);
-                break;
-            case BULLS:
-                field.setBulls(current - amount);
-                break;
-            case STEERS:
-                field.setSteers(current - amount);
-                break;
-            case YOUNG_STEERS:
-                field.setYoungSteers(current - amount);
-                break;
-            case HEIFERS:
-                field.setHeifers(current - amount);
-                break;
-            case MALE_CALVES:
-                field.setMaleCalves(current - amount);
-                break;
-            case FEMALE_CALVES:
-                field.setFemaleCalves(current - amount);
-                break;
-        }
+    // Field whose stock goes down when the action is applied
+    private Field decreasedSide(LivestockActionType actionType, Field sourceField, Field targetField) {
+        return switch (actionType) {
+            case BIRTH, PURCHASE -> null;
+            case DEATH, SALE, MOVE -> sourceField;
+        };
     }
 
-    private void saveHistory(Field field) {
-        LivestockHistory history = new LivestockHistory(field, LocalDate.now(),
-                field.getCows(), field.getBulls(), field.getSteers(), field.getYoungSteers(),
-                field.getHeifers(), field.getMaleCalves(), field.getFemaleCalves());
-        livestockHistoryRepository.save(history);
+    // Field whose stock goes up when the action is applied
+    private Field increasedSide(LivestockActionType actionType, Field sourceField, Field targetField) {
+        return switch (actionType) {
+            case BIRTH, PURCHASE, MOVE -> targetField;
+            case DEATH, SALE -> null;
+        };
     }
 
     private LivestockTransactionResponseDTO mapToDTO(LivestockTransaction t) {
@@ -464,10 +481,7 @@ public class LivestockTransactionService {
         return dto;
     }
 
-    /**
-     * Create a calendar event from a livestock transaction
-     */
-    private AgendaResponseDTO createAgendaEventFromTransaction(LivestockTransaction transaction, User user) {
+    private AgendaCreateDTO buildAgendaEvent(LivestockTransaction transaction) {
         String title = buildEventTitle(transaction);
         String description = buildEventDescription(transaction);
         AgendaEvent.EventType eventType = mapTransactionToEventType(transaction.getActionType());
@@ -483,7 +497,7 @@ public class LivestockTransactionService {
         Long fieldId = getFieldIdFromTransaction(transaction);
         agendaDto.setFieldId(fieldId);
 
-        return agendaService.createEvent(user.getId(), agendaDto);
+        return agendaDto;
     }
 
     private String buildEventTitle(LivestockTransaction t) {
@@ -550,24 +564,6 @@ public class LivestockTransactionService {
         };
     }
 
-    /**
-     * Create calendar event asynchronously to avoid transaction rollback issues
-     */
-    private void createCalendarEventAsync(LivestockTransaction transaction, User user) {
-        try {
-            AgendaResponseDTO agendaResponse = createAgendaEventFromTransaction(transaction, user);
-            if (agendaResponse != null && agendaResponse.getId() != null) {
-                transaction.setAgendaEventId(agendaResponse.getId());
-                transactionRepository.save(transaction);
-            }
-        } catch (Exception e) {
-            // Log error but don't fail the main transaction
-            System.err.println("Failed to create calendar event for transaction " +
-                    transaction.getId() + ": " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
     private void updateFinancialFields(LivestockTransaction transaction, LivestockTransactionCreateDTO dto) {
         transaction.setPricePerUnit(dto.getPricePerUnit());
         transaction.setCurrency(dto.getCurrency() != null ? dto.getCurrency() : "USD");
@@ -576,11 +572,7 @@ public class LivestockTransactionService {
         if ("ARS".equals(transaction.getCurrency())) {
             BigDecimal exchangeRate = dto.getExchangeRate();
             if (exchangeRate == null) {
-                try {
-                    exchangeRate = exchangeRateService.getCurrentExchangeRate();
-                } catch (ExchangeRateException e) {
-                    throw new RuntimeException("Failed to get exchange rate. Please provide it manually.", e);
-                }
+                exchangeRate = exchangeRateOn(transaction.getDate());
             }
             transaction.setExchangeRate(exchangeRate);
             transaction.setPricePerUnitUSD(dto.getPricePerUnit().divide(exchangeRate, 2, RoundingMode.HALF_UP));
@@ -600,20 +592,11 @@ public class LivestockTransactionService {
         }
     }
 
-    private void updateAgendaEvent(LivestockTransaction transaction) {
-        AgendaEvent.EventType eventType = mapTransactionToEventType(transaction.getActionType());
-        String title = buildEventTitle(transaction);
-        String description = buildEventDescription(transaction);
-
-        AgendaCreateDTO updateDto = new AgendaCreateDTO();
-        updateDto.setTitle(title);
-        updateDto.setDescription(description);
-        updateDto.setStartDate(transaction.getDate().atStartOfDay());
-        updateDto.setEndDate(transaction.getDate().atTime(23, 59));
-        updateDto.setEventType(eventType);
-        updateDto.setFieldId(transaction.getTargetField() != null ? transaction.getTargetField().getId()
-                : (transaction.getSourceField() != null ? transaction.getSourceField().getId() : null));
-
-        agendaService.updateEvent(transaction.getUser().getId(), transaction.getAgendaEventId(), updateDto);
+    private BigDecimal exchangeRateOn(LocalDate date) {
+        try {
+            return exchangeRateHistoryService.getRateOn(date != null ? date : LocalDate.now());
+        } catch (ExchangeRateException e) {
+            throw new RuntimeException("Failed to get exchange rate. Please provide it manually.", e);
+        }
     }
 }
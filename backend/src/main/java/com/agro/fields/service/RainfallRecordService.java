@@ -1,32 +1,53 @@
 package com.agro.fields.service;
 
+import com.agro.fields.dto.RainfallPeriod;
 import com.agro.fields.dto.RainfallRecordCreateDTO;
 import com.agro.fields.dto.RainfallRecordResponseDTO;
+import com.agro.fields.dto.RainfallTotalDTO;
+import com.agro.fields.dto.RainfallYearOverYearDTO;
 import com.agro.fields.model.Field;
 import com.agro.fields.model.RainfallRecord;
 import com.agro.fields.repository.FieldRepository;
+import com.agro.fields.repository.RainfallMonthlyTotalRepository;
 import com.agro.fields.repository.RainfallRecordRepository;
 import com.agro.user.User;
 import com.agro.user.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class RainfallRecordService {
 
+    private static final int MAX_ROLLING_MONTHS = 36;
+
     private final RainfallRecordRepository rainfallRepository;
+    private final RainfallMonthlyTotalRepository monthlyTotalRepository;
     private final FieldRepository fieldRepository;
     private final UserRepository userRepository;
+    private final FieldAccessService fieldAccessService;
 
     public RainfallRecordService(RainfallRecordRepository rainfallRepository,
+            RainfallMonthlyTotalRepository monthlyTotalRepository,
             FieldRepository fieldRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            FieldAccessService fieldAccessService) {
         this.rainfallRepository = rainfallRepository;
+        this.monthlyTotalRepository = monthlyTotalRepository;
         this.fieldRepository = fieldRepository;
         this.userRepository = userRepository;
+        this.fieldAccessService = fieldAccessService;
     }
 
     @Transactional
@@ -37,9 +58,7 @@ public class RainfallRecordService {
         Field field = fieldRepository.findById(fieldId)
                 .orElseThrow(() -> new RuntimeException("Field not found"));
 
-        if (!field.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Unauthorized: field does not belong to user");
-        }
+        fieldAccessService.requireAccess(userId, field, "Unauthorized: field does not belong to user");
 
         RainfallRecord record = new RainfallRecord();
         record.setUser(user);
@@ -47,16 +66,22 @@ public class RainfallRecordService {
         record.setDate(dto.getDate());
         record.setAmountMm(dto.getAmountMm());
 
+        // Totals are built before saving so the backfill does not count this record
+        ensureMonthlyTotals(fieldId);
         RainfallRecord saved = rainfallRepository.save(record);
+        monthlyTotalRepository.addToMonth(fieldId, monthOf(saved.getDate()), saved.getAmountMm(), 1);
         return mapToDTO(saved);
     }
 
     @Transactional(readOnly = true)
     public List<RainfallRecordResponseDTO> getRecordsByField(Long userId, Long fieldId) {
-        return rainfallRepository.findByFieldIdAndFieldUserIdOrderByDateDesc(fieldId, userId)
-                .stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        // Fields the user cannot access read as having no records
+        return fieldRepository.findById(fieldId)
+                .filter(field -> fieldAccessService.canAccess(userId, field))
+                .map(field -> rainfallRepository.findByFieldIdOrderByDateDesc(fieldId).stream()
+                        .map(this::mapToDTO)
+                        .collect(Collectors.toList()))
+                .orElse(List.of());
     }
 
     @Transactional
@@ -68,7 +93,139 @@ public class RainfallRecordService {
             throw new RuntimeException("Unauthorized");
         }
 
+        Long fieldId = record.getField().getId();
+        LocalDate month = monthOf(record.getDate());
+        ensureMonthlyTotals(fieldId);
         rainfallRepository.delete(record);
+        monthlyTotalRepository.addToMonth(fieldId, month, -record.getAmountMm(), -1);
+        monthlyTotalRepository.deleteIfEmpty(fieldId, month);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillMonthlyTotals() {
+        for (Long fieldId : monthlyTotalRepository.findFieldIdsMissingTotals()) {
+            monthlyTotalRepository.backfillField(fieldId);
+        }
+    }
+
+    /**
+     * Rainfall per month or year between two months, both included. Periods without
+     * records are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<RainfallTotalDTO> getTotals(Long userId, Long fieldId, RainfallPeriod period,
+            YearMonth from, YearMonth to) {
+        if (to == null) {
+            to = YearMonth.now();
+        }
+        if (from == null) {
+            from = period == RainfallPeriod.YEAR ? to.minusYears(9).withMonth(1) : to.minusMonths(11);
+        }
+        List<RainfallTotalDTO> months = sumByMonth(fieldIds(userId, fieldId), from, to);
+        if (period != RainfallPeriod.YEAR) {
+            return months;
+        }
+
+        Map<Integer, RainfallTotalDTO> years = new LinkedHashMap<>();
+        for (RainfallTotalDTO month : months) {
+            RainfallTotalDTO year = years.computeIfAbsent(month.getPeriodStart().getYear(),
+                    y -> new RainfallTotalDTO(LocalDate.of(y, 1, 1), 0.0, 0L));
+            year.setTotalMm(year.getTotalMm() + month.getTotalMm());
+            year.setRecordCount(year.getRecordCount() + month.getRecordCount());
+        }
+        return new ArrayList<>(years.values());
+    }
+
+    // Rainfall of each month between from and to plus the months before it, window months in all
+    @Transactional(readOnly = true)
+    public List<RainfallTotalDTO> getRollingTotals(Long userId, Long fieldId, int window,
+            YearMonth from, YearMonth to) {
+        if (window < 1 || window > MAX_ROLLING_MONTHS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "months must be between 1 and " + MAX_ROLLING_MONTHS);
+        }
+        if (to == null) {
+            to = YearMonth.now();
+        }
+        if (from == null) {
+            from = to.minusMonths(11);
+        }
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        Map<YearMonth, RainfallTotalDTO> months = byMonth(
+                sumByMonth(fieldIds(userId, fieldId), from.minusMonths(window - 1), to));
+
+        List<RainfallTotalDTO> result = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            double totalMm = 0;
+            long records = 0;
+            for (int i = 0; i < window; i++) {
+                RainfallTotalDTO total = months.get(month.minusMonths(i));
+                if (total != null) {
+                    totalMm += total.getTotalMm();
+                    records += total.getRecordCount();
+                }
+            }
+            result.add(new RainfallTotalDTO(month.atDay(1), totalMm, records));
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<RainfallYearOverYearDTO> getYearOverYear(Long userId, Long fieldId, Integer year) {
+        int current = year != null ? year : LocalDate.now().getYear();
+        Map<YearMonth, RainfallTotalDTO> months = byMonth(
+                sumByMonth(fieldIds(userId, fieldId), YearMonth.of(current - 1, 1), YearMonth.of(current, 12)));
+
+        List<RainfallYearOverYearDTO> result = new ArrayList<>();
+        for (int month = 1; month <= 12; month++) {
+            result.add(new RainfallYearOverYearDTO(month,
+                    totalOf(months.get(YearMonth.of(current, month))),
+                    totalOf(months.get(YearMonth.of(current - 1, month)))));
+        }
+        return result;
+    }
+
+    // A single field the user can access, or every field the user can access when fieldId is null
+    private List<Long> fieldIds(Long userId, Long fieldId) {
+        if (fieldId == null) {
+            return fieldRepository.findIdsByUserIdIn(fieldAccessService.getAccessibleOwnerIds(userId));
+        }
+        return fieldRepository.findById(fieldId)
+                .filter(field -> fieldAccessService.canAccess(userId, field))
+                .map(field -> List.of(field.getId()))
+                .orElse(List.of());
+    }
+
+    private List<RainfallTotalDTO> sumByMonth(List<Long> fieldIds, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (fieldIds.isEmpty()) {
+            return List.of();
+        }
+        return monthlyTotalRepository.sumByMonth(fieldIds, from.atDay(1), to.atDay(1));
+    }
+
+    private void ensureMonthlyTotals(Long fieldId) {
+        if (!monthlyTotalRepository.existsByFieldId(fieldId)) {
+            monthlyTotalRepository.backfillField(fieldId);
+        }
+    }
+
+    private static Map<YearMonth, RainfallTotalDTO> byMonth(List<RainfallTotalDTO> totals) {
+        return totals.stream()
+                .collect(Collectors.toMap(t -> YearMonth.from(t.getPeriodStart()), t -> t));
+    }
+
+    private static Double totalOf(RainfallTotalDTO total) {
+        return total != null ? total.getTotalMm() : 0.0;
+    }
+
+    private static LocalDate monthOf(LocalDate date) {
+        return date.withDayOfMonth(1);
     }
 
     private RainfallRecordResponseDTO mapToDTO(RainfallRecord r) {
@@ -48,6 +48,13 @@ public class PartnerController {
         return ResponseEntity.ok().build();
     }
 
+    @DeleteMapping("/{partnerId}")
+    @Operation(summary = "End a partnership, revoking access to each other's fields")
+    public ResponseEntity<Void> removePartner(@AuthenticationPrincipal User user, @PathVariable Long partnerId) {
+        partnerService.removePartner(user.getId(), partnerId);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/pending")
     @Operation(summary = "Get pending invitations received by the current user")
     public ResponseEntity<List<PartnerRequestDTO>> getPendingInvitations(@AuthenticationPrincipal User user) {
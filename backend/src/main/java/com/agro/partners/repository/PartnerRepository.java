@@ -20,4 +20,9 @@ public interface PartnerRepository extends JpaRepository<PartnerRequest, Long> {
 
     @Query("SELECT r FROM PartnerRequest r WHERE (r.sender = :user OR r.receiver = :user) AND r.status = 'ACCEPTED'")
     List<PartnerRequest> findAllAcceptedByUser(@Param("user") User user);
+
+    @Query("SELECT CASE WHEN r.sender.id = :userId THEN r.receiver.id ELSE r.sender.id END "
+            + "FROM PartnerRequest r WHERE (r.sender.id = :userId OR r.receiver.id = :userId) "
+            + "AND r.status = 'ACCEPTED'")
+    List<Long> findAcceptedPartnerIds(@Param("userId") Long userId);
 }
@@ -1,5 +1,6 @@
 package com.agro.partners.service;
 
+import com.agro.fields.service.FieldAccessService;
 import com.agro.partners.dto.PartnerRequestDTO;
 import com.agro.partners.model.PartnerRequest;
 import com.agro.partners.model.PartnerRequestStatus;
@@ -19,10 +20,13 @@ public class PartnerService {
 
     private final PartnerRepository partnerRepository;
     private final UserRepository userRepository;
+    private final FieldAccessService fieldAccessService;
 
-    public PartnerService(PartnerRepository partnerRepository, UserRepository userRepository) {
+    public PartnerService(PartnerRepository partnerRepository, UserRepository userRepository,
+            FieldAccessService fieldAccessService) {
         this.partnerRepository = partnerRepository;
         this.userRepository = userRepository;
+        this.fieldAccessService = fieldAccessService;
     }
 
     public void sendInvitation(Long senderId, String receiverUsername) {
@@ -52,6 +56,20 @@ public class PartnerService {
 
         request.setStatus(PartnerRequestStatus.ACCEPTED);
         partnerRepository.save(request);
+        fieldAccessService.evict(request.getSender().getId(), request.getReceiver().getId());
+    }
+
+    public void removePartner(Long userId, Long partnerId) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        User partner = userRepository.findById(partnerId)
+                .orElseThrow(() -> new RuntimeException("Partner not found"));
+
+        PartnerRequest request = partnerRepository.findRequestBetween(user, partner)
+                .filter(r -> r.getStatus() == PartnerRequestStatus.ACCEPTED)
+                .orElseThrow(() -> new RuntimeException("You are not partners"));
+
+        partnerRepository.delete(request);
+        fieldAccessService.evict(userId, partnerId);
     }
 
     public void declineInvitation(Long userId, Long requestId) {
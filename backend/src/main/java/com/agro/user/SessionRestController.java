@@ -1,5 +1,7 @@
 package com.agro.user;
 
+import com.agro.config.security.JwtService;
+import com.agro.config.security.JwtVerificationStats;
 import com.agro.user.dto.RefreshDTO;
 import com.agro.user.dto.TokenDTO;
 import com.agro.user.dto.UserCreateDTO;
@@ -15,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -28,10 +31,12 @@ import org.springframework.web.server.ResponseStatusException;
 class SessionRestController {
 
     private final UserService userService;
+    private final JwtService jwtService;
 
     @Autowired
-    SessionRestController(UserService userService) {
+    SessionRestController(UserService userService, JwtService jwtService) {
         this.userService = userService;
+        this.jwtService = jwtService;
     }
 
     @PreAuthorize("permitAll()")
@@ -72,4 +77,11 @@ class SessionRestController {
                 .refresh(data)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
     }
-}
\ No newline at end of file
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/token-cache/stats", produces = "application/json")
+    @Operation(summary = "Access token verification cache statistics")
+    public JwtVerificationStats tokenCacheStats() {
+        return jwtService.getVerificationStats();
+    }
+}
@@ -11,6 +11,64 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
 
-    @org.springframework.data.jpa.repository.Query("SELECT u FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(u.name) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(u.lastname) LIKE LOWER(CONCAT('%', :query, '%'))")
-    java.util.List<User> findBySearchTerm(@org.springframework.data.repository.query.Param("query") String query);
+    // Profile columns only, so listing never loads password hashes
+    String PROFILE_SELECT = "SELECT new com.agro.user.dto.UserProfileDTO(u.id, u.email, u.name, u.lastname, "
+            + "u.photo, u.gender, u.birthDate, u.username) FROM User u ";
+
+    @org.springframework.data.jpa.repository.Query(PROFILE_SELECT
+            + "WHERE (:afterId IS NULL OR u.id > :afterId) ORDER BY u.id")
+    java.util.List<com.agro.user.dto.UserProfileDTO> findProfilePage(
+            @org.springframework.data.repository.query.Param("afterId") Long afterId,
+            org.springframework.data.domain.Pageable pageable);
+
+    // Read through a server-side cursor; must be consumed inside a transaction
+    @org.springframework.data.jpa.repository.Query(PROFILE_SELECT + "ORDER BY u.id")
+    @org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(
+            name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    java.util.stream.Stream<com.agro.user.dto.UserProfileDTO> streamProfiles();
+
+    // Substring or fuzzy (pg_trgm) match, excluding users with any partner request to or from :userId,
+    // best matches first
+    @org.springframework.data.jpa.repository.Query(value = """
+            SELECT u.* FROM users u
+            WHERE u.id <> :userId
+              AND (lower(u.username) LIKE :pattern
+                   OR lower(u.name) LIKE :pattern
+                   OR lower(u.lastname) LIKE :pattern
+                   OR lower(u.username) % :query
+                   OR lower(u.name) % :query
+                   OR lower(u.lastname) % :query)
+              AND NOT EXISTS (
+                  SELECT 1 FROM partner_requests r
+                  WHERE (r.sender_id = :userId AND r.receiver_id = u.id)
+                     OR (r.sender_id = u.id AND r.receiver_id = :userId))
+            ORDER BY GREATEST(similarity(lower(u.username), :query),
+                              similarity(lower(u.name), :query),
+                              similarity(lower(u.lastname), :query)) DESC, u.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    java.util.List<User> searchCandidates(
+            @org.springframework.data.repository.query.Param("userId") Long userId,
+            @org.springframework.data.repository.query.Param("query") String query,
+            @org.springframework.data.repository.query.Param("pattern") String pattern,
+            @org.springframework.data.repository.query.Param("limit") int limit);
+
+    // Substring-only variant of searchCandidates for databases without pg_trgm
+    @org.springframework.data.jpa.repository.Query(value = """
+            SELECT u.* FROM users u
+            WHERE u.id <> :userId
+              AND (lower(u.username) LIKE :pattern
+                   OR lower(u.name) LIKE :pattern
+                   OR lower(u.lastname) LIKE :pattern)
+              AND NOT EXISTS (
+                  SELECT 1 FROM partner_requests r
+                  WHERE (r.sender_id = :userId AND r.receiver_id = u.id)
+                     OR (r.sender_id = u.id AND r.receiver_id = :userId))
+            ORDER BY u.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    java.util.List<User> searchCandidatesByPattern(
+            @org.springframework.data.repository.query.Param("userId") Long userId,
+            @org.springframework.data.repository.query.Param("pattern") String pattern,
+            @org.springframework.data.repository.query.Param("limit") int limit);
 }
\ No newline at end of file
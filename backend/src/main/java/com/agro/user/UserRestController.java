@@ -1,28 +1,41 @@
 package com.agro.user;
 
+import com.agro.common.KeysetPage;
 import com.agro.user.dto.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/users")
 @Tag(name = "1 - Users")
 class UserRestController {
+        private static final int MAX_SEARCH_RESULTS = 50;
+        private static final int MAX_PAGE_SIZE = 500;
+
         private final UserService userService;
+        private final ObjectMapper objectMapper;
 
         @Autowired
-        UserRestController(UserService userService) {
+        UserRestController(UserService userService, ObjectMapper objectMapper) {
                 this.userService = userService;
+                this.objectMapper = objectMapper;
         }
 
         @PreAuthorize("isAuthenticated()")
@@ -68,11 +81,43 @@ class UserRestController {
 
         @PreAuthorize("isAuthenticated()")
         @GetMapping(value = "/list", produces = "application/json")
-        @Operation(summary = "List all users")
+        @Operation(summary = "List users, one page at a time")
         @ResponseStatus(HttpStatus.OK)
         @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
-        public ResponseEntity<java.util.List<UserProfileDTO>> listUsers() {
-                return ResponseEntity.ok(userService.getAllUsers());
+        public ResponseEntity<java.util.List<UserProfileDTO>> listUsers(
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "100") int limit) {
+                if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                        "limit must be between 1 and " + MAX_PAGE_SIZE);
+                }
+                KeysetPage<UserProfileDTO> page = userService.getUsers(cursor, limit);
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (page.getNextCursor() != null) {
+                        response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+                return response.body(page.getItems());
+        }
+
+        // One JSON object per line, written while the rows are read
+        @PreAuthorize("isAuthenticated()")
+        @GetMapping(value = "/list/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        @Operation(summary = "Stream all users as NDJSON")
+        @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+        public ResponseEntity<StreamingResponseBody> streamUsers() {
+                StreamingResponseBody body = out -> {
+                        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n")
+                                        .writeValues(out)) {
+                                userService.streamUsers(profile -> {
+                                        try {
+                                                writer.write(profile);
+                                        } catch (IOException e) {
+                                                throw new UncheckedIOException(e);
+                                        }
+                                });
+                        }
+                };
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
         }
 
         @PreAuthorize("isAuthenticated()")
@@ -81,8 +126,13 @@ class UserRestController {
         @ResponseStatus(HttpStatus.OK)
         @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
         public ResponseEntity<java.util.List<UserProfileDTO>> searchUsers(@RequestParam String query,
-                        @AuthenticationPrincipal(expression = "username") String email) {
-                return ResponseEntity.ok(userService.searchUsers(query, email));
+                        @RequestParam(defaultValue = "20") int limit,
+                        @AuthenticationPrincipal User user) {
+                if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                        "limit must be between 1 and " + MAX_SEARCH_RESULTS);
+                }
+                return ResponseEntity.ok(userService.searchUsers(query, user.getId(), limit));
         }
 
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.agro.user;
 
+import com.agro.common.KeysetCursor;
+import com.agro.common.KeysetPage;
+import com.agro.config.UserSearchIndexRunner;
 import com.agro.config.security.JwtService;
 import com.agro.config.security.JwtUserDetails;
+import com.agro.config.security.PrincipalCache;
 import com.agro.user.dto.*;
 import com.agro.user.refresh_token.RefreshToken;
 import com.agro.user.refresh_token.RefreshTokenService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,6 +22,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -26,7 +33,8 @@ public class UserService implements UserDetailsService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
     private final RefreshTokenService refreshTokenService;
-    private final com.agro.partners.repository.PartnerRepository partnerRepository;
+    private final PrincipalCache principalCache;
+    private final UserSearchIndexRunner userSearchIndex;
 
     @Autowired
     UserService(
@@ -34,12 +42,14 @@ public class UserService implements UserDetailsService {
             PasswordEncoder passwordEncoder,
             UserRepository userRepository,
             RefreshTokenService refreshTokenService,
-            com.agro.partners.repository.PartnerRepository partnerRepository) {
+            PrincipalCache principalCache,
+            UserSearchIndexRunner userSearchIndex) {
         this.jwtService = jwtService;
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
         this.refreshTokenService = refreshTokenService;
-        this.partnerRepository = partnerRepository;
+        this.principalCache = principalCache;
+        this.userSearchIndex = userSearchIndex;
     }
 
     @Override
@@ -77,8 +87,7 @@ public class UserService implements UserDetailsService {
     }
 
     Optional<TokenDTO> refresh(RefreshDTO data) {
-        return refreshTokenService.findByValue(data.refreshToken())
-                .map(RefreshToken::user)
+        return refreshTokenService.consume(data.refreshToken())
                 .map(this::generateTokens);
     }
 
@@ -100,6 +109,7 @@ public class UserService implements UserDetailsService {
         if (user.isPresent()) {
             refreshTokenService.deleteByUser(user.get());
             userRepository.delete(user.get());
+            principalCache.evict(user.get().getEmail());
         }
         return user;
     }
@@ -138,29 +148,46 @@ public class UserService implements UserDetailsService {
                     }
 
                     userRepository.save(findedUser);
+                    principalCache.evict(findedUser.getEmail());
                     return ResponseEntity.status(HttpStatus.OK).body(new StatusResponseDTO("success", "User updated"));
                 });
     }
 
-    public java.util.List<UserProfileDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(user -> new UserProfileDTO(
-                        user.getId(),
-                        user.getEmail(),
-                        user.getName(),
-                        user.getLastname(),
-                        user.getPhoto(),
-                        user.getGender(),
-                        user.getBirthDate(),
-                        user.getAppUsername()))
-                .collect(java.util.stream.Collectors.toList());
+    @Transactional(readOnly = true)
+    public KeysetPage<UserProfileDTO> getUsers(String cursor, int limit) {
+        Long afterId = KeysetCursor.decodeId(cursor);
+        // One extra row tells whether there is a next page
+        java.util.List<UserProfileDTO> rows = userRepository.findProfilePage(afterId, PageRequest.of(0, limit + 1));
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = KeysetCursor.encodeId(rows.get(limit - 1).id());
+        }
+        return new KeysetPage<>(rows, nextCursor);
     }
 
-    public java.util.List<UserProfileDTO> searchUsers(String query, String email) {
-        User currentUser = getUserByEmail(email);
-        return userRepository.findBySearchTerm(query).stream()
-                .filter(user -> !user.getEmail().equals(email))
-                .filter(user -> partnerRepository.findRequestBetween(currentUser, user).isEmpty())
+    /**
+     * Hands every user profile to the sink as it is read, without loading the whole
+     * directory.
+     */
+    @Transactional(readOnly = true)
+    public void streamUsers(Consumer<UserProfileDTO> sink) {
+        try (Stream<UserProfileDTO> rows = userRepository.streamProfiles()) {
+            rows.forEach(sink);
+        }
+    }
+
+    public java.util.List<UserProfileDTO> searchUsers(String query, Long userId, int limit) {
+        String term = query.trim().toLowerCase();
+        if (term.isEmpty()) {
+            return java.util.List.of();
+        }
+        String pattern = "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        java.util.List<User> candidates = userSearchIndex.isTrigramAvailable()
+                ? userRepository.searchCandidates(userId, term, pattern, limit)
+                : userRepository.searchCandidatesByPattern(userId, pattern, limit);
+        return candidates.stream()
                 .map(user -> new UserProfileDTO(
                         user.getId(),
                         user.getEmail(),
@@ -4,12 +4,18 @@ import com.agro.user.User;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 
 import java.time.Instant;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_refresh_token_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_refresh_token_user_id", columnList = "user_id")
+})
 public class RefreshToken {
     @Id
     private String content;
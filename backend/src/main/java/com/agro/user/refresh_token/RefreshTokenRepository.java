@@ -4,8 +4,10 @@ import com.agro.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
@@ -16,4 +18,25 @@ interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
     @Modifying
     @Query("DELETE FROM RefreshToken rt WHERE rt.user = :user")
     void deleteByUser(User user);
-}
\ No newline at end of file
+
+    // Removes the token and returns its owner in one statement; expired tokens are left for the sweeper
+    @Transactional
+    @Query(value = """
+            DELETE FROM refresh_token
+            WHERE content = :content AND expires_at > :now
+            RETURNING user_id
+            """, nativeQuery = true)
+    Optional<Long> consume(@Param("content") String content, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_token
+            WHERE content IN (
+                SELECT content FROM refresh_token
+                WHERE expires_at <= :now
+                LIMIT :batchSize
+            )
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
+}
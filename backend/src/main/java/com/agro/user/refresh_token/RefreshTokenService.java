@@ -2,7 +2,9 @@ package com.agro.user.refresh_token;
 
 import com.agro.user.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
@@ -16,17 +18,23 @@ public class RefreshTokenService {
 
     private final Long expiration;
     private final Integer byteSize;
+    private final int sweepBatchSize;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final EntityManager entityManager;
 
     @Autowired
     RefreshTokenService(
             @Value("${jwt.refresh.expiration}") Long expiration,
             @Value("${jwt.refresh.bytes}") Integer byteSize,
-            RefreshTokenRepository refreshTokenRepository
+            @Value("${jwt.refresh.sweep-batch-size:1000}") int sweepBatchSize,
+            RefreshTokenRepository refreshTokenRepository,
+            EntityManager entityManager
     ) {
         this.expiration = expiration;
         this.byteSize = byteSize;
+        this.sweepBatchSize = sweepBatchSize;
         this.refreshTokenRepository = refreshTokenRepository;
+        this.entityManager = entityManager;
     }
 
     public RefreshToken createFor(User user) {
@@ -36,16 +44,30 @@ public class RefreshTokenService {
         return result;
     }
 
-    public Optional<RefreshToken> findByValue(String value) {
-        Optional<RefreshToken> result = refreshTokenRepository.findById(value);
-        result.ifPresent(refreshTokenRepository::delete);
-        return result.filter(RefreshToken::isValid);
+    // Single use: a valid token is deleted as it is redeemed
+    public Optional<User> consume(String value) {
+        return refreshTokenRepository.consume(value, Instant.now())
+                .map(userId -> entityManager.getReference(User.class, userId));
     }
 
     public void deleteByUser(User user) {
         refreshTokenRepository.deleteByUser(user);
     }
 
+    // Deletes in batches so a large backlog does not hold one long lock on the table
+    @Scheduled(fixedDelayString = "${jwt.refresh.sweep-interval-ms:3600000}")
+    public void sweepExpired() {
+        Instant now = Instant.now();
+        int deleted;
+        try {
+            do {
+                deleted = refreshTokenRepository.deleteExpiredBatch(now, sweepBatchSize);
+            } while (deleted == sweepBatchSize);
+        } catch (Exception e) {
+            System.err.println("Failed to sweep expired refresh tokens: " + e.getMessage());
+        }
+    }
+
     String getRandomString() {
         SecureRandom random = new SecureRandom();
         byte[] randomBytes = new byte[this.byteSize];
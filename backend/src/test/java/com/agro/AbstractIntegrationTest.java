@@ -0,0 +1,42 @@
+package com.agro;
+
+import com.agro.fields.model.Field;
+import com.agro.fields.repository.FieldRepository;
+import com.agro.user.User;
+import com.agro.user.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Base of the tests that run against the PostgreSQL container. The upstream rate
+ * refresh is pushed out so tests never call it; fixtures get unique names, as the
+ * context and database are shared across test classes.
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@TestPropertySource(properties = "exchange-rate.refresh-interval-ms=3600000")
+public abstract class AbstractIntegrationTest {
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected FieldRepository fieldRepository;
+
+    protected User createUser(String prefix) {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return userRepository.save(new User(prefix, "secret", "X", prefix + "-" + suffix + "@agro.test",
+                "Test", "", LocalDate.of(1990, 1, 1), prefix + "-" + suffix));
+    }
+
+    protected Field createField(User user, String name, int cows) {
+        Field field = new Field(name, 50.0, null, user, false, true, null, null);
+        field.setCows(cows);
+        return fieldRepository.save(field);
+    }
+}
@@ -0,0 +1,142 @@
+package com.agro.agenda;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgendaRecurrenceTest {
+
+    private static final LocalDateTime JAN_31 = LocalDateTime.of(2026, 1, 31, 9, 0);
+    private static final Duration ONE_HOUR = Duration.ofHours(1);
+
+    @Test
+    void monthlySeriesFromThe31stFallsOnTheLastDayOfShorterMonths() {
+        AgendaRecurrence monthly = AgendaRecurrence.parse("FREQ=MONTHLY");
+
+        assertEquals(List.of(LocalDateTime.of(2026, 2, 28, 9, 0)),
+                starts(monthly, JAN_31, LocalDateTime.of(2026, 2, 1, 0, 0), LocalDateTime.of(2026, 3, 1, 0, 0)));
+        assertEquals(List.of(LocalDateTime.of(2026, 4, 30, 9, 0)),
+                starts(monthly, JAN_31, LocalDateTime.of(2026, 4, 1, 0, 0), LocalDateTime.of(2026, 5, 1, 0, 0)));
+    }
+
+    @Test
+    void clampedMonthEndIsAnOccurrence() {
+        AgendaRecurrence monthly = AgendaRecurrence.parse("FREQ=MONTHLY");
+
+        assertTrue(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 2, 28, 9, 0)));
+        assertTrue(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 3, 31, 9, 0)));
+        assertTrue(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 4, 30, 9, 0)));
+        assertFalse(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 3, 28, 9, 0)));
+        assertFalse(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 2, 27, 9, 0)));
+        assertFalse(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 2, 28, 10, 0)));
+        assertFalse(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 1, 30, 9, 0)));
+    }
+
+    @Test
+    void untilOnAClampedMonthEndKeepsThatOccurrence() {
+        AgendaRecurrence monthly = AgendaRecurrence.parse("FREQ=MONTHLY;UNTIL=20260228");
+
+        assertEquals(LocalDateTime.of(2026, 2, 28, 9, 0), monthly.lastStart(JAN_31));
+        assertTrue(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 2, 28, 9, 0)));
+        assertFalse(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 3, 31, 9, 0)));
+    }
+
+    @Test
+    void untilBeforeTheNextOccurrenceEndsTheSeriesAtTheStart() {
+        AgendaRecurrence monthly = AgendaRecurrence.parse("FREQ=MONTHLY;UNTIL=20260227");
+
+        assertEquals(JAN_31, monthly.lastStart(JAN_31));
+    }
+
+    @Test
+    void countBoundsOccurrences() {
+        AgendaRecurrence monthly = AgendaRecurrence.parse("FREQ=MONTHLY;COUNT=2");
+
+        assertEquals(LocalDateTime.of(2026, 2, 28, 9, 0), monthly.lastStart(JAN_31));
+        assertTrue(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 2, 28, 9, 0)));
+        assertFalse(monthly.isOccurrence(JAN_31, LocalDateTime.of(2026, 3, 31, 9, 0)));
+    }
+
+    @Test
+    void intervalSkipsClampedMonths() {
+        AgendaRecurrence everyOtherMonth = AgendaRecurrence.parse("FREQ=MONTHLY;INTERVAL=2");
+        LocalDateTime dec31 = LocalDateTime.of(2025, 12, 31, 9, 0);
+
+        assertTrue(everyOtherMonth.isOccurrence(dec31, LocalDateTime.of(2026, 2, 28, 9, 0)));
+        assertFalse(everyOtherMonth.isOccurrence(dec31, LocalDateTime.of(2026, 1, 31, 9, 0)));
+        assertEquals(LocalDateTime.of(2026, 2, 28, 9, 0),
+                AgendaRecurrence.parse("FREQ=MONTHLY;INTERVAL=2;UNTIL=20260315").lastStart(dec31));
+    }
+
+    @Test
+    void yearlySeriesFromLeapDayFallsOnFebruary28() {
+        AgendaRecurrence yearly = AgendaRecurrence.parse("FREQ=YEARLY;UNTIL=20250228");
+        LocalDateTime leapDay = LocalDateTime.of(2024, 2, 29, 9, 0);
+
+        assertEquals(LocalDateTime.of(2025, 2, 28, 9, 0), yearly.lastStart(leapDay));
+        assertTrue(yearly.isOccurrence(leapDay, LocalDateTime.of(2025, 2, 28, 9, 0)));
+    }
+
+    @Test
+    void everyExpandedStartIsAnOccurrence() {
+        AgendaRecurrence monthly = AgendaRecurrence.parse("FREQ=MONTHLY;UNTIL=20271231");
+        List<LocalDateTime> starts = starts(monthly, JAN_31, LocalDateTime.of(2026, 1, 1, 0, 0),
+                LocalDateTime.of(2028, 1, 1, 0, 0));
+
+        assertEquals(24, starts.size());
+        assertEquals(starts.get(starts.size() - 1), monthly.lastStart(JAN_31));
+        for (LocalDateTime start : starts) {
+            assertTrue(monthly.isOccurrence(JAN_31, start), start.toString());
+        }
+    }
+
+    @Test
+    void neverEndingSeriesHasNoLastStart() {
+        assertNull(AgendaRecurrence.parse("RRULE:FREQ=WEEKLY;INTERVAL=2").lastStart(JAN_31));
+    }
+
+    @Test
+    void rejectsUnsupportedRules() {
+        assertThrows(IllegalArgumentException.class, () -> AgendaRecurrence.parse("FREQ=HOURLY"));
+        assertThrows(IllegalArgumentException.class, () -> AgendaRecurrence.parse("INTERVAL=2"));
+        assertThrows(IllegalArgumentException.class,
+                () -> AgendaRecurrence.parse("FREQ=DAILY;COUNT=3;UNTIL=20260301"));
+    }
+
+    @Test
+    void overridesLeftByAChangedStartOrRuleAreDropped() {
+        AgendaEvent event = new AgendaEvent();
+        event.setStartDate(JAN_31);
+        event.setEndDate(JAN_31.plus(ONE_HOUR));
+        event.setRecurrenceRule("FREQ=MONTHLY;COUNT=3");
+        AgendaOccurrenceOverride february = new AgendaOccurrenceOverride(1L, LocalDateTime.of(2026, 2, 28, 9, 0));
+        AgendaOccurrenceOverride april = new AgendaOccurrenceOverride(1L, LocalDateTime.of(2026, 4, 30, 9, 0));
+        List<AgendaOccurrenceOverride> overrides = List.of(february, april);
+
+        // April is past the third occurrence
+        assertEquals(List.of(february), AgendaService.currentOverrides(event, overrides));
+
+        event.setStartDate(JAN_31.plusDays(1));
+        assertEquals(List.of(), AgendaService.currentOverrides(event, overrides));
+
+        event.setStartDate(JAN_31);
+        event.setRecurrenceRule(null);
+        assertEquals(List.of(), AgendaService.currentOverrides(event, overrides));
+    }
+
+    private static List<LocalDateTime> starts(AgendaRecurrence recurrence, LocalDateTime seriesStart,
+            LocalDateTime windowStart, LocalDateTime windowEnd) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        recurrence.forEachStart(seriesStart, ONE_HOUR, windowStart, windowEnd, 1000, starts::add);
+        return starts;
+    }
+}
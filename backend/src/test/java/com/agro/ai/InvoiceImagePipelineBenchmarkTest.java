@@ -0,0 +1,228 @@
+package com.agro.ai;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the photo pipeline that decoded the full image and rotated it with an
+ * AffineTransform against the subsampled decode plus {@link InvoiceImagePreprocessor},
+ * on a generated 12 MP receipt photo stored sideways (EXIF orientation 6). The
+ * timing comparison is tagged "benchmark" and only runs with -Pbenchmark.
+ */
+class InvoiceImagePipelineBenchmarkTest {
+
+    private static final int UPRIGHT_WIDTH = 3000;
+    private static final int UPRIGHT_HEIGHT = 4000;
+    private static final int ORIENTATION = 6;
+    private static final int MAX_DIMENSION = 2500;
+    private static final int RUNS = 5;
+
+    private static byte[] photo;
+    private static List<Rectangle> lines;
+
+    @BeforeAll
+    static void generateReceipt() throws Exception {
+        // Text lines as dark bars on paper lit unevenly from the left
+        BufferedImage upright = new BufferedImage(UPRIGHT_WIDTH, UPRIGHT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = upright.createGraphics();
+        for (int x = 0; x < UPRIGHT_WIDTH; x++) {
+            int paper = 235 - 60 * x / UPRIGHT_WIDTH;
+            graphics.setColor(new Color(paper, paper, paper));
+            graphics.drawLine(x, 0, x, UPRIGHT_HEIGHT - 1);
+        }
+        lines = new ArrayList<>();
+        graphics.setColor(new Color(30, 30, 30));
+        for (int i = 0; i < 28; i++) {
+            Rectangle line = new Rectangle(200, 300 + i * 120, 600 + (i * 337) % 1900, 24);
+            lines.add(line);
+            graphics.fill(line);
+        }
+        graphics.dispose();
+
+        // Phones store the sensor image and record the turn in EXIF
+        BufferedImage stored = new BufferedImage(UPRIGHT_HEIGHT, UPRIGHT_WIDTH, BufferedImage.TYPE_INT_RGB);
+        for (int sy = 0; sy < UPRIGHT_WIDTH; sy++) {
+            for (int sx = 0; sx < UPRIGHT_HEIGHT; sx++) {
+                stored.setRGB(sx, sy, upright.getRGB(UPRIGHT_WIDTH - 1 - sy, sx));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(stored, "jpg", out);
+        photo = out.toByteArray();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void preprocessorIsFasterAndAllocatesLessThanFullDecodeAndRotation() throws Exception {
+        InvoiceScanService service = scanService(true);
+
+        Measurement legacy = measure(() -> legacyDecode(photo, ORIENTATION));
+        Measurement current = measure(() -> service.decode(photo, ORIENTATION));
+
+        assertTrue(current.allocatedBytes * 2 < legacy.allocatedBytes,
+                "preprocessor allocated " + current.allocatedBytes + " bytes, legacy " + legacy.allocatedBytes);
+        assertTrue(current.millis < legacy.millis,
+                "preprocessor took " + current.millis + " ms, legacy " + legacy.millis + " ms");
+    }
+
+    @Test
+    void preprocessorKeepsTheLegacyOrientation() throws Exception {
+        BufferedImage legacy = legacyDecode(photo, ORIENTATION);
+        BufferedImage current = scanService(false).decode(photo, ORIENTATION);
+        int step = legacy.getWidth() / current.getWidth();
+
+        assertEquals(UPRIGHT_WIDTH, legacy.getWidth());
+        assertEquals(UPRIGHT_HEIGHT / step, current.getHeight());
+        long difference = 0;
+        for (int y = 0; y < current.getHeight(); y++) {
+            for (int x = 0; x < current.getWidth(); x++) {
+                int rgb = legacy.getRGB(x * step, y * step);
+                int luminance = (77 * ((rgb >> 16) & 0xFF) + 150 * ((rgb >> 8) & 0xFF) + 29 * (rgb & 0xFF)) >> 8;
+                difference += Math.abs(luminance - current.getRaster().getSample(x, y, 0));
+            }
+        }
+        double meanDifference = difference / (double) (current.getWidth() * current.getHeight());
+        assertTrue(meanDifference < 6, "mean gray level difference " + meanDifference);
+    }
+
+    @Test
+    void binarizedOutputKeepsTextAndClearsUnevenPaper() throws Exception {
+        BufferedImage current = scanService(true).decode(photo, ORIENTATION);
+        double scale = current.getWidth() / (double) UPRIGHT_WIDTH;
+
+        long ink = 0;
+        long inkBlack = 0;
+        long paper = 0;
+        long paperWhite = 0;
+        for (int y = 0; y < current.getHeight(); y++) {
+            for (int x = 0; x < current.getWidth(); x++) {
+                int ux = (int) (x / scale);
+                int uy = (int) (y / scale);
+                boolean black = current.getRaster().getSample(x, y, 0) == 0;
+                if (inside(ux, uy, 4)) {
+                    ink++;
+                    inkBlack += black ? 1 : 0;
+                } else if (!near(ux, uy, 40)) {
+                    paper++;
+                    paperWhite += black ? 0 : 1;
+                }
+            }
+        }
+        assertTrue(inkBlack >= ink * 0.95, inkBlack + " of " + ink + " text pixels black");
+        assertTrue(paperWhite >= paper * 0.99, paperWhite + " of " + paper + " paper pixels white");
+    }
+
+    private static InvoiceScanService scanService(boolean binarize) {
+        return new InvoiceScanService(null, new InvoiceImagePreprocessor(binarize), 20, MAX_DIMENSION);
+    }
+
+    private static boolean inside(int x, int y, int margin) {
+        for (Rectangle line : lines) {
+            if (x >= line.x + margin && x < line.x + line.width - margin
+                    && y >= line.y + margin && y < line.y + line.height - margin) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean near(int x, int y, int margin) {
+        for (Rectangle line : lines) {
+            if (x >= line.x - margin && x < line.x + line.width + margin
+                    && y >= line.y - margin && y < line.y + line.height + margin) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The decode used before the preprocessor: full-size read, then an AffineTransform turn
+    private static BufferedImage legacyDecode(byte[] bytes, int orientation) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+        AffineTransform transform = new AffineTransform();
+        int w = image.getWidth();
+        int h = image.getHeight();
+        switch (orientation) {
+            case 2 -> {
+                transform.scale(-1.0, 1.0);
+                transform.translate(-w, 0);
+            }
+            case 3 -> {
+                transform.translate(w, h);
+                transform.rotate(Math.PI);
+            }
+            case 4 -> {
+                transform.scale(1.0, -1.0);
+                transform.translate(0, -h);
+            }
+            case 5 -> {
+                transform.rotate(Math.PI / 2);
+                transform.scale(1.0, -1.0);
+            }
+            case 6 -> {
+                transform.translate(h, 0);
+                transform.rotate(Math.PI / 2);
+            }
+            case 7 -> {
+                transform.scale(-1.0, 1.0);
+                transform.translate(-h, 0);
+                transform.translate(0, w);
+                transform.rotate(3 * Math.PI / 2);
+            }
+            case 8 -> {
+                transform.translate(0, w);
+                transform.rotate(3 * Math.PI / 2);
+            }
+            default -> {
+                return image;
+            }
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage rotated = new BufferedImage(swap ? h : w, swap ? w : h,
+                image.getType() != 0 ? image.getType() : BufferedImage.TYPE_INT_RGB);
+        new AffineTransformOp(transform, AffineTransformOp.TYPE_BILINEAR).filter(image, rotated);
+        return rotated;
+    }
+
+    private record Measurement(long millis, long allocatedBytes) {
+    }
+
+    private static Measurement measure(Callable<BufferedImage> pipeline) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // Warm-up runs let the JIT compile both pipelines before timing
+        for (int i = 0; i < 2; i++) {
+            pipeline.call();
+        }
+        long[] millis = new long[RUNS];
+        long[] allocated = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long startedAt = System.nanoTime();
+            pipeline.call();
+            millis[i] = (System.nanoTime() - startedAt) / 1_000_000;
+            allocated[i] = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        Arrays.sort(millis);
+        Arrays.sort(allocated);
+        return new Measurement(millis[RUNS / 2], allocated[RUNS / 2]);
+    }
+}
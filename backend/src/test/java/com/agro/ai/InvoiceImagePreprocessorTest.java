@@ -0,0 +1,189 @@
+package com.agro.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InvoiceImagePreprocessorTest {
+
+    // Stored pixels of a 3x2 photo, one distinct gray level each:
+    //   a b c
+    //   d e f
+    private static final int A = 10, B = 40, C = 70, D = 100, E = 130, F = 160;
+
+    private final InvoiceImagePreprocessor grayOnly = new InvoiceImagePreprocessor(false);
+    private final InvoiceImagePreprocessor binarizing = new InvoiceImagePreprocessor(true);
+
+    @Test
+    void orientation1KeepsThePixels() {
+        assertPixels(1, new int[][] { { A, B, C }, { D, E, F } });
+    }
+
+    @Test
+    void orientation2MirrorsHorizontally() {
+        assertPixels(2, new int[][] { { C, B, A }, { F, E, D } });
+    }
+
+    @Test
+    void orientation3RotatesHalfATurn() {
+        assertPixels(3, new int[][] { { F, E, D }, { C, B, A } });
+    }
+
+    @Test
+    void orientation4MirrorsVertically() {
+        assertPixels(4, new int[][] { { D, E, F }, { A, B, C } });
+    }
+
+    @Test
+    void orientation5Transposes() {
+        assertPixels(5, new int[][] { { A, D }, { B, E }, { C, F } });
+    }
+
+    @Test
+    void orientation6RotatesClockwise() {
+        assertPixels(6, new int[][] { { D, A }, { E, B }, { F, C } });
+    }
+
+    @Test
+    void orientation7Transverses() {
+        assertPixels(7, new int[][] { { F, C }, { E, B }, { D, A } });
+    }
+
+    @Test
+    void orientation8RotatesCounterClockwise() {
+        assertPixels(8, new int[][] { { C, F }, { B, E }, { A, D } });
+    }
+
+    @Test
+    void unknownOrientationKeepsThePixels() {
+        assertPixels(0, new int[][] { { A, B, C }, { D, E, F } });
+        assertPixels(9, new int[][] { { A, B, C }, { D, E, F } });
+    }
+
+    @Test
+    void uniformImageIsWhiteUpToTheEdges() {
+        for (int[] size : new int[][] { { 1, 1 }, { 1, 50 }, { 50, 1 }, { 7, 5 }, { 120, 90 } }) {
+            int[][] result = pixels(binarizing.preprocess(gray(filled(size[0], size[1], 128)), 1));
+            for (int[] row : result) {
+                for (int value : row) {
+                    assertEquals(255, value, "uniform " + size[0] + "x" + size[1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void darkPixelsOnTheBorderStayBlack() {
+        int width = 100;
+        int height = 80;
+        int[][] page = filled(width, height, 220);
+        int[][] corners = { { 0, 0 }, { width - 1, 0 }, { 0, height - 1 }, { width - 1, height - 1 }, { 50, 0 },
+                { 0, 40 } };
+        for (int[] corner : corners) {
+            page[corner[1]][corner[0]] = 20;
+        }
+
+        int[][] result = pixels(binarizing.preprocess(gray(page), 1));
+        int black = 0;
+        for (int[] row : result) {
+            for (int value : row) {
+                black += value == 0 ? 1 : 0;
+            }
+        }
+        for (int[] corner : corners) {
+            assertEquals(0, result[corner[1]][corner[0]], "pixel " + corner[0] + "," + corner[1]);
+        }
+        assertEquals(corners.length, black);
+    }
+
+    @Test
+    void binarizerMatchesABruteForceMeanThreshold() {
+        Random random = new Random(42);
+        // Sizes below, at and above the window, and tall enough to wrap the row ring buffer
+        int[][] sizes = { { 1, 1 }, { 1, 40 }, { 40, 1 }, { 3, 17 }, { 17, 3 }, { 18, 19 }, { 64, 64 },
+                { 33, 300 }, { 300, 33 }, { 257, 129 } };
+        for (int[] size : sizes) {
+            int[][] page = new int[size[1]][size[0]];
+            for (int y = 0; y < size[1]; y++) {
+                for (int x = 0; x < size[0]; x++) {
+                    page[y][x] = random.nextInt(256);
+                }
+            }
+            int[][] expected = bruteForce(page);
+            int[][] actual = pixels(binarizing.preprocess(gray(page), 1));
+            for (int y = 0; y < size[1]; y++) {
+                for (int x = 0; x < size[0]; x++) {
+                    assertEquals(expected[y][x], actual[y][x],
+                            "pixel " + x + "," + y + " of " + size[0] + "x" + size[1]);
+                }
+            }
+        }
+    }
+
+    private void assertPixels(int orientation, int[][] expected) {
+        int[][] stored = { { A, B, C }, { D, E, F } };
+        int[][] actual = pixels(grayOnly.preprocess(gray(stored), orientation));
+        assertEquals(expected.length, actual.length, "height for orientation " + orientation);
+        for (int y = 0; y < expected.length; y++) {
+            assertEquals(expected[y].length, actual[y].length, "width for orientation " + orientation);
+            for (int x = 0; x < expected[y].length; x++) {
+                assertEquals(expected[y][x], actual[y][x], "pixel " + x + "," + y + " for orientation " + orientation);
+            }
+        }
+    }
+
+    // Window of the preprocessor clipped to the image, compared with the same 15% margin
+    private static int[][] bruteForce(int[][] page) {
+        int height = page.length;
+        int width = page[0].length;
+        int radius = Math.max(8, Math.max(width, height) / 32);
+        int[][] result = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                long sum = 0;
+                long count = 0;
+                for (int wy = Math.max(0, y - radius); wy <= Math.min(height - 1, y + radius); wy++) {
+                    for (int wx = Math.max(0, x - radius); wx <= Math.min(width - 1, x + radius); wx++) {
+                        sum += page[wy][wx];
+                        count++;
+                    }
+                }
+                result[y][x] = page[y][x] * count * 100 <= sum * 85 ? 0 : 255;
+            }
+        }
+        return result;
+    }
+
+    private static int[][] filled(int width, int height, int value) {
+        int[][] page = new int[height][width];
+        for (int[] row : page) {
+            java.util.Arrays.fill(row, value);
+        }
+        return page;
+    }
+
+    // Equal RGB channels, so the luminance conversion gives the value back unchanged
+    private static BufferedImage gray(int[][] page) {
+        BufferedImage image = new BufferedImage(page[0].length, page.length, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < page.length; y++) {
+            for (int x = 0; x < page[0].length; x++) {
+                int v = page[y][x];
+                image.setRGB(x, y, (v << 16) | (v << 8) | v);
+            }
+        }
+        return image;
+    }
+
+    private static int[][] pixels(BufferedImage image) {
+        int[][] result = new int[image.getHeight()][image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                result[y][x] = image.getRaster().getSample(x, y, 0);
+            }
+        }
+        return result;
+    }
+}
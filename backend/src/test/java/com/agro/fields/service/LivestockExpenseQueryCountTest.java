@@ -0,0 +1,109 @@
+package com.agro.fields.service;
+
+import com.agro.AbstractIntegrationTest;
+import com.agro.common.KeysetPage;
+import com.agro.fields.dto.LivestockExpenseFilter;
+import com.agro.fields.dto.LivestockExpenseResponseDTO;
+import com.agro.fields.model.Field;
+import com.agro.fields.model.LivestockExpense;
+import com.agro.fields.repository.LivestockExpenseRepository;
+import com.agro.user.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Listing expenses must look field names up per page (or once per field when
+ * streaming), never once per row.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class LivestockExpenseQueryCountTest extends AbstractIntegrationTest {
+
+    private static final String FIELD_NAMES_QUERY = "SELECT f.id, f.name FROM fields f WHERE f.id IN :ids";
+    private static final int FIELDS = 3;
+    private static final int EXPENSES = 60;
+
+    @Autowired
+    private LivestockExpenseService expenseService;
+
+    @Autowired
+    private LivestockExpenseRepository expenseRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = createUser("expenses");
+        userId = user.getId();
+
+        List<Field> fields = new ArrayList<>();
+        for (int i = 0; i < FIELDS; i++) {
+            fields.add(createField(user, "Lote " + i, 0));
+        }
+        List<LivestockExpense> expenses = new ArrayList<>();
+        for (int i = 0; i < EXPENSES; i++) {
+            LivestockExpense expense = new LivestockExpense();
+            expense.setUser(user);
+            expense.setName("Gasto " + i);
+            expense.setFieldId(fields.get(i % FIELDS).getId());
+            expense.setCost(BigDecimal.TEN);
+            expense.setDate(LocalDate.of(2026, 1, 1).plusDays(i));
+            expenses.add(expense);
+        }
+        expenseRepository.saveAll(expenses);
+    }
+
+    @Test
+    void pageLooksUpFieldNamesOnceRegardlessOfSize() {
+        long smallPage = statementsForPage(5);
+        long fieldNameQueriesSmall = fieldNameQueries();
+        long largePage = statementsForPage(50);
+        long fieldNameQueriesLarge = fieldNameQueries();
+
+        assertEquals(1, fieldNameQueriesSmall);
+        assertEquals(1, fieldNameQueriesLarge);
+        // The page query plus the field names query
+        assertEquals(2, smallPage);
+        assertEquals(smallPage, largePage);
+    }
+
+    @Test
+    void streamLooksUpEachFieldOnce() {
+        statistics.clear();
+        List<LivestockExpenseResponseDTO> rows = new ArrayList<>();
+        expenseService.streamExpenses(userId, new LivestockExpenseFilter(), rows::add);
+
+        assertEquals(EXPENSES, rows.size());
+        assertEquals(FIELDS, fieldNameQueries());
+        assertEquals(1 + FIELDS, statistics.getPrepareStatementCount());
+    }
+
+    private long statementsForPage(int limit) {
+        statistics.clear();
+        KeysetPage<LivestockExpenseResponseDTO> page = expenseService.getExpenses(userId,
+                new LivestockExpenseFilter(), null, limit);
+        assertEquals(limit, page.getItems().size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long fieldNameQueries() {
+        return statistics.getQueryStatistics(FIELD_NAMES_QUERY).getExecutionCount();
+    }
+}
@@ -0,0 +1,126 @@
+package com.agro.fields.service;
+
+import com.agro.AbstractIntegrationTest;
+import com.agro.fields.dto.LivestockTransactionCreateDTO;
+import com.agro.fields.model.Field;
+import com.agro.fields.model.LivestockActionType;
+import com.agro.fields.model.LivestockCategory;
+import com.agro.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many threads selling from the same field at once: exactly the opening stock must
+ * be sold, the stock must never be seen below zero and the ledger must add up.
+ */
+@TestPropertySource(properties = "livestock.ledger.snapshot-threshold=1000000")
+class LivestockStockConcurrencyTest extends AbstractIntegrationTest {
+
+    private static final int OPENING_COWS = 20;
+    private static final int THREADS = 8;
+    private static final int SALES_PER_THREAD = 5;
+
+    @Autowired
+    private LivestockTransactionService transactionService;
+
+    @Autowired
+    private LivestockLedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentSalesNeverDriveStockNegative() throws Exception {
+        User user = createUser("stress");
+        Field saved = createField(user, "Lote", OPENING_COWS);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        AtomicInteger lowestSeen = new AtomicInteger(OPENING_COWS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        pool.submit(() -> {
+            while (running.get()) {
+                Field current = fieldRepository.findById(saved.getId()).orElseThrow();
+                lowestSeen.accumulateAndGet(ledgerService.currentStock(current).get(LivestockCategory.COWS),
+                        Math::min);
+            }
+        });
+        List<Future<?>> sellers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            sellers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < SALES_PER_THREAD; i++) {
+                    try {
+                        transactionService.createTransaction(user.getId(), sale(saved.getId()));
+                        sold.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (e.getMessage() != null && e.getMessage().startsWith("Insufficient stock")) {
+                            refused.incrementAndGet();
+                        } else {
+                            unexpected.add(e);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> seller : sellers) {
+                seller.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            pool.shutdown();
+        }
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + List.copyOf(unexpected));
+        assertEquals(OPENING_COWS, sold.get());
+        assertEquals(THREADS * SALES_PER_THREAD - OPENING_COWS, refused.get());
+        assertTrue(lowestSeen.get() >= 0, "Stock was seen at " + lowestSeen.get());
+
+        Field after = fieldRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(0, ledgerService.currentStock(after).get(LivestockCategory.COWS));
+
+        Integer ledgerSum = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(delta), 0) FROM livestock_stock_deltas "
+                        + "WHERE field_id = ? AND category = 'COWS' AND type = 'EVENT'",
+                Integer.class, saved.getId());
+        Integer soldInTransactions = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM livestock_transactions WHERE source_field_id = ?",
+                Integer.class, saved.getId());
+        assertEquals(-OPENING_COWS, ledgerSum);
+        assertEquals(OPENING_COWS, soldInTransactions);
+    }
+
+    private static LivestockTransactionCreateDTO sale(Long fieldId) {
+        LivestockTransactionCreateDTO dto = new LivestockTransactionCreateDTO();
+        dto.setActionType(LivestockActionType.SALE);
+        dto.setCategory(LivestockCategory.COWS);
+        dto.setQuantity(1);
+        dto.setSourceFieldId(fieldId);
+        return dto;
+    }
+}